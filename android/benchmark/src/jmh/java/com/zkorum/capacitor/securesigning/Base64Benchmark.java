@@ -0,0 +1,45 @@
+package com.zkorum.capacitor.securesigning;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Base64 work done by the plugin on every call: decoding payloads and encoding signatures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class Base64Benchmark {
+
+    @Param({ "32", "1024", "65536" })
+    public int payloadSize;
+
+    private String encodedPayload;
+    private byte[] signature;
+
+    @Setup
+    public void setup() {
+        encodedPayload = Base64.getEncoder().encodeToString(BenchmarkKeys.randomBytes(payloadSize));
+        signature = BenchmarkKeys.randomBytes(64);
+    }
+
+    @Benchmark
+    public byte[] decodePayload() {
+        // same decoding as SecureSigningPlugin.sign
+        return Base64.getDecoder().decode(encodedPayload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public String encodeSignature() {
+        return Base64.getEncoder().encodeToString(signature);
+    }
+}
@@ -0,0 +1,35 @@
+package com.zkorum.capacitor.securesigning;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Random;
+
+final class BenchmarkKeys {
+
+    static final String ALIAS = "benchmark/key";
+
+    private BenchmarkKeys() {}
+
+    static KeyPair newP256KeyPair() throws GeneralSecurityException {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("EC");
+        kpg.initialize(new ECGenParameterSpec("secp256r1"));
+        return kpg.generateKeyPair();
+    }
+
+    /**
+     * Returns a SecureSigning backed by in-memory software keys, with a key pair generated under ALIAS.
+     */
+    static SecureSigning newSigning() throws SecureSigningException {
+        SecureSigning signing = new SecureSigning(new InMemoryKeyBackend());
+        signing.generateKeyPair(ALIAS);
+        return signing;
+    }
+
+    static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,31 @@
+package com.zkorum.capacitor.securesigning;
+
+import java.security.KeyStoreException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of the error path, which builds a SecureSigningException with a formatted message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExceptionBenchmark {
+
+    private final KeyStoreException cause = new KeyStoreException("benchmark");
+
+    @Benchmark
+    public SecureSigningException withoutCause() {
+        return new SecureSigningException(SecureSigningException.ErrorKind.missingKey);
+    }
+
+    @Benchmark
+    public SecureSigningException withCause() {
+        return new SecureSigningException(SecureSigningException.ErrorKind.keystoreError, cause);
+    }
+}
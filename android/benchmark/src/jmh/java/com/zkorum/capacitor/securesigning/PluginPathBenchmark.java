@@ -0,0 +1,82 @@
+package com.zkorum.capacitor.securesigning;
+
+import com.getcapacitor.JSObject;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Native side of the sign and getKeyPair plugin calls, as done by SecureSigningPlugin:
+ * option decoding, dispatch to the executor, the operation itself and building the result.
+ * The JS bridge is not part of it, it cannot run on a host JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PluginPathBenchmark {
+
+    private SecureSigning implementation;
+    private StripedExecutor executor;
+    private String data;
+
+    @Setup
+    public void setup() throws Exception {
+        implementation = BenchmarkKeys.newSigning();
+        executor = new StripedExecutor("SecureSigningBenchmark", 2, 64);
+        data = Base64.getEncoder().encodeToString(BenchmarkKeys.randomBytes(256));
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public JSObject sign() {
+        byte[] decodedData = Base64.getDecoder().decode(data.getBytes(StandardCharsets.UTF_8));
+        SignatureFormat format = SignatureFormat.fromOption(null);
+        return run(() -> {
+            JSObject ret = new JSObject();
+            ret.put("signature", implementation.sign(BenchmarkKeys.ALIAS, decodedData, format));
+            return ret;
+        });
+    }
+
+    @Benchmark
+    public JSObject getKeyPair() {
+        PublicKeyFormat format = PublicKeyFormat.fromOption(null);
+        return run(() -> {
+            JSObject ret = new JSObject();
+            ret.put("publicKey", implementation.getPublicKeyEncodings(BenchmarkKeys.ALIAS).get(format));
+            return ret;
+        });
+    }
+
+    private interface Op {
+        JSObject run() throws SecureSigningException;
+    }
+
+    private JSObject run(Op op) {
+        CompletableFuture<JSObject> result = new CompletableFuture<>();
+        executor.execute(
+            BenchmarkKeys.ALIAS,
+            () -> {
+                try {
+                    result.complete(op.run());
+                } catch (SecureSigningException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        );
+        return result.join();
+    }
+}
@@ -0,0 +1,44 @@
+package com.zkorum.capacitor.securesigning;
+
+import java.security.PublicKey;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Public key extraction and encoding, uncached and through the per-alias cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PublicKeyEncodingBenchmark {
+
+    private SecureSigning signing;
+    private PublicKey publicKey;
+
+    @Setup
+    public void setup() throws Exception {
+        signing = BenchmarkKeys.newSigning();
+        publicKey = signing.getKeyPair(BenchmarkKeys.ALIAS).getPublic();
+    }
+
+    @Benchmark
+    public byte[] ecFromPubKey() {
+        return signing.ecFromPubKey(publicKey);
+    }
+
+    @Benchmark
+    public PublicKeyEncodings computeEncodings() {
+        return new PublicKeyEncodings(publicKey);
+    }
+
+    @Benchmark
+    public String cachedDidKey() throws SecureSigningException {
+        return signing.getPublicKeyEncodings(BenchmarkKeys.ALIAS).get(PublicKeyFormat.DID_KEY);
+    }
+}
@@ -0,0 +1,49 @@
+package com.zkorum.capacitor.securesigning;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * SecureSigning signing methods, with the key served by the in-memory backend.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SignBenchmark {
+
+    @Param({ "32", "1024", "65536" })
+    public int payloadSize;
+
+    private SecureSigning signing;
+    private byte[] payload;
+    private byte[] digest;
+
+    @Setup
+    public void setup() throws Exception {
+        signing = BenchmarkKeys.newSigning();
+        payload = BenchmarkKeys.randomBytes(payloadSize);
+        digest = BenchmarkKeys.randomBytes(32);
+    }
+
+    @Benchmark
+    public String sign() throws SecureSigningException {
+        return signing.sign(BenchmarkKeys.ALIAS, payload);
+    }
+
+    @Benchmark
+    public String signDer() throws SecureSigningException {
+        return signing.sign(BenchmarkKeys.ALIAS, payload, SignatureFormat.DER);
+    }
+
+    @Benchmark
+    public String signDigest() throws SecureSigningException {
+        return signing.signDigest(BenchmarkKeys.ALIAS, digest, SignatureFormat.P1363);
+    }
+}
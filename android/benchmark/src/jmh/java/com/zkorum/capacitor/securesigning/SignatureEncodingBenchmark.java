@@ -0,0 +1,59 @@
+package com.zkorum.capacitor.securesigning;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.crypto.signers.PlainDSAEncoding;
+import org.bouncycastle.math.ec.custom.sec.SecP256R1Curve;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * DER to P1363 signature conversion, compared with the BouncyCastle ASN.1 based conversion it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SignatureEncodingBenchmark {
+
+    private byte[] derSignature;
+    private final byte[] out = new byte[P1363Converter.P256.signatureLength()];
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPair keyPair = BenchmarkKeys.newP256KeyPair();
+        Signature s = Signature.getInstance("SHA256withECDSA");
+        s.initSign(keyPair.getPrivate());
+        s.update(BenchmarkKeys.randomBytes(32));
+        derSignature = s.sign();
+    }
+
+    @Benchmark
+    public byte[] toP1363ReusedBuffer() throws SignatureException {
+        P1363Converter.P256.toP1363(derSignature, out);
+        return out;
+    }
+
+    @Benchmark
+    public byte[] toP1363() throws SignatureException {
+        return P1363Converter.P256.toP1363(derSignature);
+    }
+
+    @Benchmark
+    public byte[] bouncyCastleBaseline() throws Exception {
+        ASN1Sequence seq = ASN1Sequence.getInstance(derSignature);
+        BigInteger r = ((ASN1Integer) seq.getObjectAt(0)).getValue();
+        BigInteger s = ((ASN1Integer) seq.getObjectAt(1)).getValue();
+        BigInteger n = new SecP256R1Curve().getOrder();
+        return PlainDSAEncoding.INSTANCE.encode(n, r, s);
+    }
+}
@@ -0,0 +1,86 @@
+package com.zkorum.capacitor.securesigning;
+
+import androidx.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of the aliases of a backend, loaded once with {@link KeyBackend#list()}
+ * and then kept up to date by the generations and deletions done through it.
+ */
+class AliasIndex {
+
+    private final KeyBackend backend;
+
+    // null until loaded, or after an operation left the index in an unknown state
+    @Nullable
+    private volatile Set<String> aliases;
+
+    AliasIndex(KeyBackend backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * Returns the aliases, listing them from the backend on first use.
+     */
+    Set<String> load() throws SecureSigningException {
+        Set<String> loaded = aliases;
+        if (loaded != null) {
+            return loaded;
+        }
+        synchronized (this) {
+            if (aliases == null) {
+                Set<String> set = ConcurrentHashMap.newKeySet();
+                set.addAll(backend.list());
+                aliases = set;
+            }
+            return aliases;
+        }
+    }
+
+    boolean contains(String alias) throws SecureSigningException {
+        return this.load().contains(alias);
+    }
+
+    /*
+     * Mutations take the monitor held during a load: one made while the backend is being listed
+     * waits for the set to be built and is then applied to it, even if the listing missed it.
+     */
+    synchronized void add(String alias) {
+        Set<String> loaded = aliases;
+        if (loaded != null) {
+            loaded.add(alias);
+        }
+    }
+
+    synchronized void remove(String alias) {
+        Set<String> loaded = aliases;
+        if (loaded != null) {
+            loaded.remove(alias);
+        }
+    }
+
+    /**
+     * Forces a reload from the backend on next use.
+     */
+    synchronized void invalidate() {
+        aliases = null;
+    }
+
+    /**
+     * Returns the aliases starting with the given prefix, sorted.
+     */
+    List<String> list(String prefix) throws SecureSigningException {
+        List<String> matching = new ArrayList<>();
+        for (String alias : this.load()) {
+            if (alias.startsWith(prefix)) {
+                matching.add(alias);
+            }
+        }
+        Collections.sort(matching);
+        return matching;
+    }
+}
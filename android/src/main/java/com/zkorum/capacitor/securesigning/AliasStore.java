@@ -0,0 +1,22 @@
+package com.zkorum.capacitor.securesigning;
+
+import androidx.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * Mapping of the aliases given by callers to the backend aliases of their keys,
+ * for keys taken from the pre-generation pool. Implementations must be thread-safe.
+ */
+public interface AliasStore {
+    /**
+     * Returns the backend alias of the key of the given alias, or null if it is not mapped.
+     */
+    @Nullable
+    String get(String alias);
+
+    void put(String alias, String backendAlias);
+
+    void remove(String alias);
+
+    Map<String, String> getAll();
+}
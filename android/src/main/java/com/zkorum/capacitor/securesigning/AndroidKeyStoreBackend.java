@@ -0,0 +1,177 @@
+package com.zkorum.capacitor.securesigning;
+
+import android.os.Build;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+import android.security.keystore.StrongBoxUnavailableException;
+import androidx.annotation.Nullable;
+import java.io.IOException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.UnrecoverableEntryException;
+import java.security.cert.CertificateException;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hardware-backed keys stored in the AndroidKeyStore.
+ */
+public class AndroidKeyStoreBackend implements KeyBackend {
+
+    private static final String ANDROID_KEY_STORE = "AndroidKeyStore";
+
+    private static final Object KEY_STORE_LOCK = new Object();
+    private static volatile KeyStore keyStore;
+
+    @Override
+    public KeyPair generate(String alias, KeyGenOptions options) throws SecureSigningException {
+        /*
+         * Generate a new EC key pair entry in the Android Keystore by
+         * using the KeyPairGenerator API. The private key can only be
+         * used for signing or verification and only with the digests
+         * allowed by the options (SHA-256 or SHA-512 by default), plus
+         * the one of its algorithm.
+         */
+        SigningAlgorithm algorithm = options.getAlgorithm();
+        if (algorithm == SigningAlgorithm.ED25519 && Build.VERSION.SDK_INT < Build.VERSION_CODES.TIRAMISU) {
+            throw new SecureSigningException(
+                SecureSigningException.ErrorKind.keyGenerationError,
+                new UnsupportedOperationException("Ed25519 keys require Android 13 or later")
+            );
+        }
+        KeyPairGenerator kpg = null;
+        try {
+            kpg = KeyPairGenerator.getInstance(KeyProperties.KEY_ALGORITHM_EC, ANDROID_KEY_STORE);
+            kpg.initialize(
+                new KeyGenParameterSpec.Builder(alias, KeyProperties.PURPOSE_SIGN | KeyProperties.PURPOSE_VERIFY)
+                    .setAlgorithmParameterSpec(new ECGenParameterSpec(algorithm.getCurve()))
+                    .setDigests(options.getAuthorizedDigests())
+                    .setIsStrongBoxBacked(options.isStrongBox())
+                    .build()
+            );
+            return kpg.generateKeyPair();
+        } catch (NoSuchAlgorithmException | NoSuchProviderException | InvalidAlgorithmParameterException e) {
+            e.printStackTrace();
+            throw new SecureSigningException(SecureSigningException.ErrorKind.keyGenerationError, e);
+        } catch (StrongBoxUnavailableException e) {
+            e.printStackTrace();
+            throw new SecureSigningException(SecureSigningException.ErrorKind.keyGenerationError, e);
+        }
+    }
+
+    public KeyStore getKeyStore() throws SecureSigningException {
+        // The AndroidKeyStore is process-wide, so load it once and share the handle
+        KeyStore loaded = keyStore;
+        if (loaded != null) {
+            return loaded;
+        }
+        synchronized (KEY_STORE_LOCK) {
+            if (keyStore == null) {
+                long start = SecureSigningMetrics.start();
+                keyStore = loadKeyStore();
+                SecureSigningMetrics.record(SecureSigningMetrics.Phase.keystoreLoad, start);
+            }
+            return keyStore;
+        }
+    }
+
+    private static KeyStore loadKeyStore() throws SecureSigningException {
+        KeyStore keyStore = null;
+        try {
+            keyStore = KeyStore.getInstance(ANDROID_KEY_STORE);
+        } catch (KeyStoreException e) {
+            e.printStackTrace();
+            throw new SecureSigningException(SecureSigningException.ErrorKind.keystoreError, e);
+        }
+        try {
+            keyStore.load(null);
+        } catch (CertificateException | IOException | NoSuchAlgorithmException e) {
+            e.printStackTrace();
+            throw new SecureSigningException(SecureSigningException.ErrorKind.keystoreError, e);
+        }
+        return keyStore;
+    }
+
+    @Nullable
+    @Override
+    public KeyPair lookup(String alias) throws SecureSigningException {
+        KeyStore ks = this.getKeyStore();
+        KeyStore.Entry entry = null;
+        try {
+            entry = ks.getEntry(alias, null);
+        } catch (KeyStoreException | NoSuchAlgorithmException | UnrecoverableEntryException e) {
+            e.printStackTrace();
+            throw new SecureSigningException(SecureSigningException.ErrorKind.keystoreError, e);
+        }
+        if (entry == null) {
+            return null;
+        }
+        if (!(entry instanceof KeyStore.PrivateKeyEntry)) {
+            throw new SecureSigningException(SecureSigningException.ErrorKind.missingKey);
+        }
+        KeyStore.PrivateKeyEntry privateKeyEntry = (KeyStore.PrivateKeyEntry) entry;
+        return new KeyPair(privateKeyEntry.getCertificate().getPublicKey(), privateKeyEntry.getPrivateKey());
+    }
+
+    @Override
+    public Signature initSign(PrivateKey privateKey, String algorithm) throws SecureSigningException {
+        try {
+            // creates DER/ASN1-encoded signature
+            // (plain P1363 output is not available with AndroidKeyStore as Provider)
+            Signature s = SigningAlgorithm.newSignature(algorithm, privateKey);
+            s.initSign(privateKey);
+            return s;
+        } catch (InvalidKeyException e) {
+            e.printStackTrace();
+            throw new SecureSigningException(SecureSigningException.ErrorKind.invalidData, e);
+        } catch (NoSuchAlgorithmException e) {
+            e.printStackTrace();
+            throw new SecureSigningException(SecureSigningException.ErrorKind.keystoreError, e);
+        }
+    }
+
+    @Override
+    public boolean contains(String alias) throws SecureSigningException {
+        try {
+            return this.getKeyStore().containsAlias(alias);
+        } catch (KeyStoreException e) {
+            e.printStackTrace();
+            throw new SecureSigningException(SecureSigningException.ErrorKind.keystoreError, e);
+        }
+    }
+
+    @Override
+    public DeleteStatus delete(String alias) throws SecureSigningException {
+        KeyStore ks = this.getKeyStore();
+        try {
+            if (ks.containsAlias(alias)) {
+                ks.deleteEntry(alias);
+                return DeleteStatus.DELETED;
+            } else {
+                return DeleteStatus.NOT_FOUND;
+            }
+        } catch (KeyStoreException e) {
+            e.printStackTrace();
+            throw new SecureSigningException(SecureSigningException.ErrorKind.keystoreError, e);
+        }
+    }
+
+    @Override
+    public List<String> list() throws SecureSigningException {
+        try {
+            return Collections.list(this.getKeyStore().aliases());
+        } catch (KeyStoreException e) {
+            e.printStackTrace();
+            throw new SecureSigningException(SecureSigningException.ErrorKind.keystoreError, e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.zkorum.capacitor.securesigning;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Outcome of signing one payload of a batch: either a signature or the error that prevented it.
+ */
+public class BatchSignResult {
+
+    @Nullable
+    private final String signature;
+
+    @Nullable
+    private final SecureSigningException error;
+
+    private BatchSignResult(@Nullable String signature, @Nullable SecureSigningException error) {
+        this.signature = signature;
+        this.error = error;
+    }
+
+    static BatchSignResult success(String signature) {
+        return new BatchSignResult(signature, null);
+    }
+
+    static BatchSignResult failure(SecureSigningException error) {
+        return new BatchSignResult(null, error);
+    }
+
+    @Nullable
+    public String getSignature() {
+        return signature;
+    }
+
+    @Nullable
+    public SecureSigningException getError() {
+        return error;
+    }
+}
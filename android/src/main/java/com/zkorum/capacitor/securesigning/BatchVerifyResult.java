@@ -0,0 +1,36 @@
+package com.zkorum.capacitor.securesigning;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Outcome of verifying one item of a batch: whether the signature is valid, or the error that prevented checking it.
+ */
+public class BatchVerifyResult {
+
+    private final boolean valid;
+
+    @Nullable
+    private final SecureSigningException error;
+
+    private BatchVerifyResult(boolean valid, @Nullable SecureSigningException error) {
+        this.valid = valid;
+        this.error = error;
+    }
+
+    static BatchVerifyResult verified(boolean valid) {
+        return new BatchVerifyResult(valid, null);
+    }
+
+    static BatchVerifyResult failure(SecureSigningException error) {
+        return new BatchVerifyResult(false, error);
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    @Nullable
+    public SecureSigningException getError() {
+        return error;
+    }
+}
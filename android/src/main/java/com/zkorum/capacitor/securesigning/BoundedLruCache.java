@@ -0,0 +1,49 @@
+package com.zkorum.capacitor.securesigning;
+
+import androidx.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small thread-safe LRU cache with a fixed maximum number of entries.
+ * When full, inserting a new entry evicts the least recently accessed one.
+ */
+class BoundedLruCache<K, V> {
+
+    private final LinkedHashMap<K, V> map;
+
+    BoundedLruCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        // access-order iteration makes the eldest entry the least recently used one
+        this.map =
+            new LinkedHashMap<K, V>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+    }
+
+    @Nullable
+    synchronized V get(K key) {
+        return map.get(key);
+    }
+
+    synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    synchronized void remove(K key) {
+        map.remove(key);
+    }
+
+    synchronized void clear() {
+        map.clear();
+    }
+
+    synchronized int size() {
+        return map.size();
+    }
+}
@@ -0,0 +1,35 @@
+package com.zkorum.capacitor.securesigning;
+
+import androidx.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Alias mapping that lasts as long as the process, for backends that do not persist their keys either.
+ */
+public class InMemoryAliasStore implements AliasStore {
+
+    private final ConcurrentHashMap<String, String> aliases = new ConcurrentHashMap<>();
+
+    @Nullable
+    @Override
+    public String get(String alias) {
+        return aliases.get(alias);
+    }
+
+    @Override
+    public void put(String alias, String backendAlias) {
+        aliases.put(alias, backendAlias);
+    }
+
+    @Override
+    public void remove(String alias) {
+        aliases.remove(alias);
+    }
+
+    @Override
+    public Map<String, String> getAll() {
+        return new HashMap<>(aliases);
+    }
+}
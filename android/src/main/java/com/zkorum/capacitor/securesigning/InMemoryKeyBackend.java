@@ -0,0 +1,64 @@
+package com.zkorum.capacitor.securesigning;
+
+import androidx.annotation.Nullable;
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Software keys held in memory only, lost when the process dies.
+ * Meant for tests, benchmarks and development builds: it runs on any JVM, without a device.
+ * Key generation options other than the algorithm are accepted but have no effect.
+ */
+public class InMemoryKeyBackend implements KeyBackend {
+
+    private final ConcurrentHashMap<String, KeyPair> keys = new ConcurrentHashMap<>();
+
+    @Override
+    public KeyPair generate(String alias, KeyGenOptions options) throws SecureSigningException {
+        KeyPair keyPair = SoftwareKeys.generateKeyPair(options.getAlgorithm());
+        keys.put(alias, keyPair);
+        return keyPair;
+    }
+
+    @Nullable
+    @Override
+    public KeyPair lookup(String alias) {
+        return keys.get(alias);
+    }
+
+    @Override
+    public Signature initSign(PrivateKey privateKey, String algorithm) throws SecureSigningException {
+        try {
+            Signature s = SigningAlgorithm.newSignature(algorithm, privateKey);
+            s.initSign(privateKey);
+            return s;
+        } catch (InvalidKeyException e) {
+            e.printStackTrace();
+            throw new SecureSigningException(SecureSigningException.ErrorKind.invalidData, e);
+        } catch (NoSuchAlgorithmException e) {
+            e.printStackTrace();
+            throw new SecureSigningException(SecureSigningException.ErrorKind.keystoreError, e);
+        }
+    }
+
+    @Override
+    public boolean contains(String alias) {
+        return keys.containsKey(alias);
+    }
+
+    @Override
+    public DeleteStatus delete(String alias) {
+        return keys.remove(alias) != null ? DeleteStatus.DELETED : DeleteStatus.NOT_FOUND;
+    }
+
+    @Override
+    public List<String> list() {
+        return new ArrayList<>(keys.keySet());
+    }
+}
@@ -0,0 +1,34 @@
+package com.zkorum.capacitor.securesigning;
+
+import androidx.annotation.Nullable;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.List;
+
+/**
+ * Storage of the signing key pairs, by alias. Implementations must be thread-safe.
+ */
+public interface KeyBackend {
+    /**
+     * Generates a new key pair under the given alias, replacing any existing one.
+     */
+    KeyPair generate(String alias, KeyGenOptions options) throws SecureSigningException;
+
+    /**
+     * Returns the key pair stored under the given alias, or null if there is none.
+     */
+    @Nullable
+    KeyPair lookup(String alias) throws SecureSigningException;
+
+    /**
+     * Returns a Signature of the given algorithm, initialized for signing with a key of this backend.
+     */
+    Signature initSign(PrivateKey privateKey, String algorithm) throws SecureSigningException;
+
+    boolean contains(String alias) throws SecureSigningException;
+
+    DeleteStatus delete(String alias) throws SecureSigningException;
+
+    List<String> list() throws SecureSigningException;
+}
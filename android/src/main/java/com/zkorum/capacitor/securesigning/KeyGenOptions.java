@@ -0,0 +1,90 @@
+package com.zkorum.capacitor.securesigning;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Parameters of newly generated key pairs.
+ */
+public class KeyGenOptions {
+
+    // same values as the KeyProperties.DIGEST_* constants
+    static final String DIGEST_NONE = "NONE";
+    static final String DIGEST_SHA256 = "SHA-256";
+    static final String DIGEST_SHA384 = "SHA-384";
+    static final String DIGEST_SHA512 = "SHA-512";
+
+    private static final List<String> SUPPORTED_DIGESTS = Arrays.asList(DIGEST_NONE, DIGEST_SHA256, DIGEST_SHA384, DIGEST_SHA512);
+
+    public static final KeyGenOptions DEFAULT = new KeyGenOptions(new String[] { DIGEST_SHA256, DIGEST_SHA512 }, false);
+
+    private final SigningAlgorithm algorithm;
+    private final String[] digests;
+    private final boolean strongBox;
+
+    public KeyGenOptions(String[] digests, boolean strongBox) {
+        this(SigningAlgorithm.ES256, digests, strongBox);
+    }
+
+    /**
+     * @param algorithm signature algorithm of the key
+     * @param digests digests the key is authorized for, DIGEST_NONE allows signing prehashed digests.
+     *                The digest of the algorithm is always authorized.
+     * @param strongBox whether the key must be stored in StrongBox rather than the (usually faster) TEE
+     */
+    public KeyGenOptions(SigningAlgorithm algorithm, String[] digests, boolean strongBox) {
+        if (digests.length == 0) {
+            throw new IllegalArgumentException("At least one digest is required");
+        }
+        for (String digest : digests) {
+            if (!SUPPORTED_DIGESTS.contains(digest)) {
+                throw new IllegalArgumentException(String.format("Unsupported digest '%s'", digest));
+            }
+        }
+        this.algorithm = algorithm;
+        this.digests = digests.clone();
+        this.strongBox = strongBox;
+    }
+
+    public SigningAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public String[] getDigests() {
+        return digests.clone();
+    }
+
+    /**
+     * Returns the digests, with the one required by the algorithm added if missing.
+     */
+    String[] getAuthorizedDigests() {
+        if (Arrays.asList(digests).contains(algorithm.getDigest())) {
+            return digests.clone();
+        }
+        String[] authorized = Arrays.copyOf(digests, digests.length + 1);
+        authorized[digests.length] = algorithm.getDigest();
+        return authorized;
+    }
+
+    public boolean isStrongBox() {
+        return strongBox;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof KeyGenOptions)) {
+            return false;
+        }
+        KeyGenOptions other = (KeyGenOptions) o;
+        return algorithm == other.algorithm && strongBox == other.strongBox && new HashSet<>(Arrays.asList(digests)).equals(new HashSet<>(Arrays.asList(other.digests)));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * algorithm.hashCode() + new HashSet<>(Arrays.asList(digests)).hashCode()) + Boolean.hashCode(strongBox);
+    }
+}
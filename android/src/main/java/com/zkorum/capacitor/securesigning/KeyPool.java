@@ -0,0 +1,138 @@
+package com.zkorum.capacitor.securesigning;
+
+import androidx.annotation.Nullable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Key pairs generated ahead of time under internal aliases, so that generating a key
+ * only has to claim one. Refills run on a single minimum-priority background thread.
+ *
+ * Pooled keys left unclaimed by a previous run are picked up again on start,
+ * those generated with other options are deleted.
+ */
+class KeyPool {
+
+    static final String ALIAS_PREFIX = "__securesigning_pool/";
+
+    private final KeyBackend backend;
+    private final AliasIndex aliasIndex;
+    private final AliasStore aliasStore;
+    private final int size;
+    private final KeyGenOptions options;
+    private final String aliasPrefix;
+
+    private final ConcurrentLinkedQueue<String> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean refillScheduled = new AtomicBoolean();
+    private final ExecutorService refiller = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SecureSigning-pool");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    KeyPool(KeyBackend backend, AliasIndex aliasIndex, AliasStore aliasStore, int size, KeyGenOptions options) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        this.backend = backend;
+        this.aliasIndex = aliasIndex;
+        this.aliasStore = aliasStore;
+        this.size = size;
+        this.options = options;
+        this.aliasPrefix = ALIAS_PREFIX + getOptionsTag(options) + "/";
+    }
+
+    static boolean isPoolAlias(String alias) {
+        return alias.startsWith(ALIAS_PREFIX);
+    }
+
+    // options are part of the alias, so keys from a previous run can be matched against them
+    private static String getOptionsTag(KeyGenOptions options) {
+        String[] digests = options.getDigests();
+        Arrays.sort(digests);
+        return options.getAlgorithm().getOption() + "/" + String.join("+", digests) + (options.isStrongBox() ? "/strongbox" : "/tee");
+    }
+
+    void start() {
+        refillScheduled.set(true);
+        refiller.execute(() -> {
+            this.recover();
+            refillScheduled.set(false);
+            this.refill();
+        });
+    }
+
+    void shutdown() {
+        refiller.shutdownNow();
+    }
+
+    /**
+     * Takes a ready key pair generated with the given options and schedules a refill.
+     * Returns the alias of the claimed key, or null if none is ready.
+     */
+    @Nullable
+    String claim(KeyGenOptions options) {
+        if (!this.options.equals(options)) {
+            return null;
+        }
+        String alias = ready.poll();
+        this.scheduleRefill();
+        return alias;
+    }
+
+    private void scheduleRefill() {
+        if (!refillScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refiller.execute(() -> {
+                refillScheduled.set(false);
+                this.refill();
+            });
+        } catch (RejectedExecutionException e) {
+            // shut down
+        }
+    }
+
+    private void recover() {
+        try {
+            Set<String> claimed = new HashSet<>(aliasStore.getAll().values());
+            for (String alias : backend.list()) {
+                if (!isPoolAlias(alias) || claimed.contains(alias)) {
+                    continue;
+                }
+                if (alias.startsWith(aliasPrefix)) {
+                    ready.add(alias);
+                } else {
+                    backend.delete(alias);
+                    aliasIndex.remove(alias);
+                }
+            }
+        } catch (SecureSigningException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void refill() {
+        while (ready.size() < size && !Thread.currentThread().isInterrupted()) {
+            String alias = aliasPrefix + UUID.randomUUID();
+            try {
+                backend.generate(alias, options);
+            } catch (SecureSigningException e) {
+                // retried on the next claim
+                e.printStackTrace();
+                return;
+            }
+            aliasIndex.add(alias);
+            ready.add(alias);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.zkorum.capacitor.securesigning;
+
+import java.util.List;
+
+/**
+ * Signature of the Merkle root of a batch of messages, with the inclusion proof of each message.
+ */
+public class MerkleBatchSignature {
+
+    private final MerkleTree tree;
+    private final String signature;
+
+    MerkleBatchSignature(MerkleTree tree, String signature) {
+        this.tree = tree;
+        this.signature = signature;
+    }
+
+    public byte[] getRoot() {
+        return tree.getRoot();
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public int getTreeSize() {
+        return tree.size();
+    }
+
+    /**
+     * Sibling hashes from the leaf of the message at index up to the root.
+     */
+    public List<byte[]> getProof(int index) {
+        return tree.getProof(index);
+    }
+}
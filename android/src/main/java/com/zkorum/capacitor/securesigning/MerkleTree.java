@@ -0,0 +1,113 @@
+package com.zkorum.capacitor.securesigning;
+
+import androidx.annotation.Nullable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SHA-256 Merkle tree over a list of messages, as specified by RFC 6962 (section 2.1):
+ * leaves are hashed as SHA-256(0x00 || message), inner nodes as SHA-256(0x01 || left || right),
+ * and the tree of n leaves splits at the largest power of two smaller than n.
+ * Inclusion proofs list the sibling hashes from the leaf up to the root.
+ */
+final class MerkleTree {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+
+    private final byte[] root;
+    private final List<List<byte[]>> proofs;
+
+    private MerkleTree(byte[] root, List<List<byte[]>> proofs) {
+        this.root = root;
+        this.proofs = proofs;
+    }
+
+    static MerkleTree build(byte[][] messages) throws NoSuchAlgorithmException {
+        if (messages.length == 0) {
+            throw new IllegalArgumentException("At least one message is required");
+        }
+        MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        List<List<byte[]>> proofs = new ArrayList<>(messages.length);
+        for (int i = 0; i < messages.length; i++) {
+            proofs.add(new ArrayList<>());
+        }
+        byte[] root = buildSubtree(digest, messages, 0, messages.length, proofs);
+        return new MerkleTree(root, proofs);
+    }
+
+    // the proofs of the leaves below get the sibling of each subtree they are in, deepest first
+    private static byte[] buildSubtree(MessageDigest digest, byte[][] messages, int start, int end, List<List<byte[]>> proofs) {
+        if (end - start == 1) {
+            return hashLeaf(digest, messages[start]);
+        }
+        int split = start + Integer.highestOneBit(end - start - 1);
+        byte[] left = buildSubtree(digest, messages, start, split, proofs);
+        byte[] right = buildSubtree(digest, messages, split, end, proofs);
+        for (int i = start; i < split; i++) {
+            proofs.get(i).add(right);
+        }
+        for (int i = split; i < end; i++) {
+            proofs.get(i).add(left);
+        }
+        return hashNode(digest, left, right);
+    }
+
+    byte[] getRoot() {
+        return root.clone();
+    }
+
+    int size() {
+        return proofs.size();
+    }
+
+    List<byte[]> getProof(int index) {
+        return proofs.get(index);
+    }
+
+    /**
+     * Returns the root of the tree of treeSize leaves in which message is at index with the given proof,
+     * or null if the proof does not fit such a tree (RFC 9162, section 2.1.3.2).
+     */
+    @Nullable
+    static byte[] rootFromProof(byte[] message, int index, int treeSize, List<byte[]> proof) throws NoSuchAlgorithmException {
+        if (index < 0 || index >= treeSize) {
+            return null;
+        }
+        MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        long fn = index;
+        long sn = treeSize - 1;
+        byte[] hash = hashLeaf(digest, message);
+        for (byte[] sibling : proof) {
+            if (sn == 0) {
+                return null;
+            }
+            if ((fn & 1) == 1 || fn == sn) {
+                hash = hashNode(digest, sibling, hash);
+                while ((fn & 1) == 0 && fn != 0) {
+                    fn >>= 1;
+                    sn >>= 1;
+                }
+            } else {
+                hash = hashNode(digest, hash, sibling);
+            }
+            fn >>= 1;
+            sn >>= 1;
+        }
+        return sn == 0 ? hash : null;
+    }
+
+    private static byte[] hashLeaf(MessageDigest digest, byte[] message) {
+        digest.update(LEAF_PREFIX);
+        return digest.digest(message);
+    }
+
+    private static byte[] hashNode(MessageDigest digest, byte[] left, byte[] right) {
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        return digest.digest(right);
+    }
+}
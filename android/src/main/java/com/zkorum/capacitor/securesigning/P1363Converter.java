@@ -0,0 +1,126 @@
+package com.zkorum.capacitor.securesigning;
+
+import java.security.SignatureException;
+import java.util.Arrays;
+
+/**
+ * Converts DER/ASN.1 encoded ECDSA signatures, as produced by AndroidKeyStore, to the
+ * fixed-size P1363 (r || s) encoding by walking the DER bytes directly, and back.
+ * No intermediate ASN.1 objects or BigIntegers are allocated.
+ */
+final class P1363Converter {
+
+    static final P1363Converter P256 = new P1363Converter(32);
+    static final P1363Converter P384 = new P1363Converter(48);
+
+    private static final byte DER_SEQUENCE = 0x30;
+    private static final byte DER_INTEGER = 0x02;
+
+    private final int componentLength;
+
+    // Reused P1363 output, it is encoded before leaving the signing thread
+    private final ThreadLocal<byte[]> buffer;
+
+    private P1363Converter(int componentLength) {
+        this.componentLength = componentLength;
+        this.buffer = ThreadLocal.withInitial(() -> new byte[2 * componentLength]);
+    }
+
+    int signatureLength() {
+        return 2 * componentLength;
+    }
+
+    /**
+     * Returns this thread's output buffer of signatureLength() bytes.
+     */
+    byte[] threadBuffer() {
+        return buffer.get();
+    }
+
+    /**
+     * Writes the P1363 encoding of derSignature into the first signatureLength() bytes of out.
+     */
+    void toP1363(byte[] derSignature, byte[] out) throws SignatureException {
+        if (out.length < signatureLength()) {
+            throw new IllegalArgumentException("output buffer is too small");
+        }
+        if (derSignature.length < 8 || derSignature[0] != DER_SEQUENCE) {
+            throw new SignatureException("Malformed DER signature");
+        }
+        // r and s are at most componentLength + 1 bytes each, so the sequence length always fits the short form
+        int sequenceLength = derSignature[1] & 0xff;
+        if (sequenceLength > 0x7f || sequenceLength + 2 != derSignature.length) {
+            throw new SignatureException("Malformed DER signature");
+        }
+        int offset = copyInteger(derSignature, 2, out, 0);
+        offset = copyInteger(derSignature, offset, out, componentLength);
+        if (offset != derSignature.length) {
+            throw new SignatureException("Malformed DER signature");
+        }
+    }
+
+    byte[] toP1363(byte[] derSignature) throws SignatureException {
+        byte[] out = new byte[signatureLength()];
+        toP1363(derSignature, out);
+        return out;
+    }
+
+    /**
+     * Returns the DER encoding of p1363Signature, as expected by the platform's ECDSA verifiers.
+     */
+    byte[] toDer(byte[] p1363Signature) throws SignatureException {
+        if (p1363Signature.length != signatureLength()) {
+            throw new SignatureException("Malformed P1363 signature");
+        }
+        int rLength = integerLength(p1363Signature, 0);
+        int sLength = integerLength(p1363Signature, componentLength);
+        byte[] der = new byte[6 + rLength + sLength];
+        der[0] = DER_SEQUENCE;
+        der[1] = (byte) (der.length - 2);
+        writeInteger(p1363Signature, 0, rLength, der, 2);
+        writeInteger(p1363Signature, componentLength, sLength, der, 4 + rLength);
+        return der;
+    }
+
+    // DER integers are minimal and signed: leading zeros are dropped, one is kept if the high bit is set
+    private int integerLength(byte[] p1363, int offset) {
+        int start = offset;
+        int end = offset + componentLength;
+        while (start < end - 1 && p1363[start] == 0) {
+            start++;
+        }
+        return end - start + ((p1363[start] & 0x80) != 0 ? 1 : 0);
+    }
+
+    private void writeInteger(byte[] p1363, int offset, int length, byte[] der, int derOffset) {
+        der[derOffset] = DER_INTEGER;
+        der[derOffset + 1] = (byte) length;
+        // the last bytes of the component, the extra sign byte if any is already zero
+        int copied = Math.min(length, componentLength);
+        System.arraycopy(p1363, offset + componentLength - copied, der, derOffset + 2 + length - copied, copied);
+    }
+
+    private int copyInteger(byte[] der, int offset, byte[] out, int outOffset) throws SignatureException {
+        if (offset + 2 > der.length || der[offset] != DER_INTEGER) {
+            throw new SignatureException("Malformed DER signature");
+        }
+        int length = der[offset + 1] & 0xff;
+        int start = offset + 2;
+        int end = start + length;
+        if (length == 0 || length > componentLength + 1 || end > der.length) {
+            throw new SignatureException("Malformed DER signature");
+        }
+        // DER integers are signed: drop the leading zero added when the high bit is set
+        while (start < end - 1 && der[start] == 0) {
+            start++;
+        }
+        int valueLength = end - start;
+        if (valueLength > componentLength) {
+            throw new SignatureException("Malformed DER signature");
+        }
+        int padding = componentLength - valueLength;
+        Arrays.fill(out, outOffset, outOffset + padding, (byte) 0);
+        System.arraycopy(der, start, out, outOffset + padding, valueLength);
+        return end;
+    }
+}
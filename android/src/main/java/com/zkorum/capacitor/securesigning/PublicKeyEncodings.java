@@ -0,0 +1,162 @@
+package com.zkorum.capacitor.securesigning;
+
+import java.math.BigInteger;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECPoint;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * All supported encodings of a public key, computed once so they can be cached per alias.
+ * EC keys are encoded as points; Ed25519 keys, which have a single 32 bytes encoding,
+ * use it for both the uncompressed and compressed forms.
+ */
+public class PublicKeyEncodings {
+
+    // multicodec varint prefixes of compressed P-256 (0x1200) and P-384 (0x1201) keys and of Ed25519 keys (0xed)
+    private static final byte[] P256_MULTICODEC = { (byte) 0x80, 0x24 };
+    private static final byte[] P384_MULTICODEC = { (byte) 0x81, 0x24 };
+    private static final byte[] ED25519_MULTICODEC = { (byte) 0xed, 0x01 };
+    private static final int ED25519_KEY_LENGTH = 32;
+    private static final char[] BASE58_ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz".toCharArray();
+
+    private final SigningAlgorithm algorithm;
+    private final byte[] uncompressed;
+    private final byte[] compressed;
+    private final String base64;
+    private final String base64Url;
+    private final String compressedBase64;
+    private final String multibase;
+    private final String didKey;
+    private final String jwk;
+
+    public PublicKeyEncodings(PublicKey publicKey) {
+        this.algorithm = SigningAlgorithm.of(publicKey);
+        Base64.Encoder base64UrlEncoder = Base64.getUrlEncoder().withoutPadding();
+        byte[] multicodecPrefix;
+        if (algorithm == SigningAlgorithm.ED25519) {
+            // the raw key ends the X.509 encoding, whatever the provider
+            byte[] encoded = publicKey.getEncoded();
+            this.uncompressed = Arrays.copyOfRange(encoded, encoded.length - ED25519_KEY_LENGTH, encoded.length);
+            this.compressed = this.uncompressed;
+            multicodecPrefix = ED25519_MULTICODEC;
+            this.jwk = "{\"crv\":\"Ed25519\",\"kty\":\"OKP\",\"x\":\"" + base64UrlEncoder.encodeToString(this.uncompressed) + "\"}";
+        } else {
+            boolean p384 = algorithm == SigningAlgorithm.ES384;
+            int coordinateLength = p384 ? 48 : 32;
+            // the affine coordinates are read directly, no DER parsing of the encoded key is needed
+            ECPoint w = ((ECPublicKey) publicKey).getW();
+            byte[] x = toFixedLength(w.getAffineX(), coordinateLength);
+            byte[] y = toFixedLength(w.getAffineY(), coordinateLength);
+
+            this.uncompressed = new byte[1 + 2 * coordinateLength];
+            this.uncompressed[0] = 0x04;
+            System.arraycopy(x, 0, this.uncompressed, 1, coordinateLength);
+            System.arraycopy(y, 0, this.uncompressed, 1 + coordinateLength, coordinateLength);
+
+            this.compressed = new byte[1 + coordinateLength];
+            this.compressed[0] = (byte) (w.getAffineY().testBit(0) ? 0x03 : 0x02);
+            System.arraycopy(x, 0, this.compressed, 1, coordinateLength);
+
+            multicodecPrefix = p384 ? P384_MULTICODEC : P256_MULTICODEC;
+            this.jwk =
+                "{\"crv\":\"" +
+                (p384 ? "P-384" : "P-256") +
+                "\",\"kty\":\"EC\",\"x\":\"" +
+                base64UrlEncoder.encodeToString(x) +
+                "\",\"y\":\"" +
+                base64UrlEncoder.encodeToString(y) +
+                "\"}";
+        }
+
+        this.base64 = Base64.getEncoder().encodeToString(this.uncompressed);
+        this.base64Url = base64UrlEncoder.encodeToString(this.uncompressed);
+        this.compressedBase64 = Base64.getEncoder().encodeToString(this.compressed);
+
+        byte[] multicodec = new byte[multicodecPrefix.length + this.compressed.length];
+        System.arraycopy(multicodecPrefix, 0, multicodec, 0, multicodecPrefix.length);
+        System.arraycopy(this.compressed, 0, multicodec, multicodecPrefix.length, this.compressed.length);
+        this.multibase = "z" + base58(multicodec);
+        this.didKey = "did:key:" + this.multibase;
+    }
+
+    public SigningAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public String get(PublicKeyFormat format) {
+        switch (format) {
+            case BASE64URL:
+                return base64Url;
+            case COMPRESSED:
+                return compressedBase64;
+            case MULTIBASE:
+                return multibase;
+            case DID_KEY:
+                return didKey;
+            case JWK:
+                return jwk;
+            case BASE64:
+            default:
+                return base64;
+        }
+    }
+
+    /**
+     * Returns the uncompressed point (65 bytes for P-256), or the raw Ed25519 key. Callers must not modify it.
+     */
+    public byte[] getUncompressed() {
+        return uncompressed;
+    }
+
+    /**
+     * Returns the compressed point (33 bytes for P-256), or the raw Ed25519 key. Callers must not modify it.
+     */
+    public byte[] getCompressed() {
+        return compressed;
+    }
+
+    private static byte[] toFixedLength(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length == length) {
+            return bytes;
+        }
+        byte[] out = new byte[length];
+        // drop the sign byte, or left-pad values with leading zeros
+        int copy = Math.min(bytes.length, length);
+        System.arraycopy(bytes, bytes.length - copy, out, length - copy, copy);
+        return out;
+    }
+
+    private static String base58(byte[] input) {
+        int zeros = 0;
+        while (zeros < input.length && input[zeros] == 0) {
+            zeros++;
+        }
+        // repeated division of the big-endian number by 58
+        byte[] number = input.clone();
+        char[] encoded = new char[input.length * 2];
+        int outputStart = encoded.length;
+        for (int inputStart = zeros; inputStart < number.length;) {
+            int remainder = 0;
+            for (int i = inputStart; i < number.length; i++) {
+                int digit = (remainder << 8) | (number[i] & 0xff);
+                number[i] = (byte) (digit / 58);
+                remainder = digit % 58;
+            }
+            encoded[--outputStart] = BASE58_ALPHABET[remainder];
+            if (number[inputStart] == 0) {
+                inputStart++;
+            }
+        }
+        // skip the zero digits produced by the division, then restore one per leading zero byte
+        while (outputStart < encoded.length && encoded[outputStart] == BASE58_ALPHABET[0]) {
+            outputStart++;
+        }
+        while (zeros-- > 0) {
+            encoded[--outputStart] = BASE58_ALPHABET[0];
+        }
+        return new String(encoded, outputStart, encoded.length - outputStart);
+    }
+}
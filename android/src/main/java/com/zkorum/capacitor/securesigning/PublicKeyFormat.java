@@ -0,0 +1,54 @@
+package com.zkorum.capacitor.securesigning;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Encodings in which a public key can be returned.
+ */
+public enum PublicKeyFormat {
+    /**
+     * Uncompressed point (0x04 || x || y), base64 encoded.
+     */
+    BASE64("base64"),
+    /**
+     * Uncompressed point, base64url encoded without padding.
+     */
+    BASE64URL("base64url"),
+    /**
+     * Compressed point (0x02/0x03 || x), base64 encoded.
+     */
+    COMPRESSED("compressed"),
+    /**
+     * Multicodec-prefixed compressed point, base58btc multibase encoded.
+     */
+    MULTIBASE("multibase"),
+    /**
+     * did:key identifier derived from the multibase encoding.
+     */
+    DID_KEY("didKey"),
+    /**
+     * JSON Web Key, serialized with its members in lexicographic order.
+     */
+    JWK("jwk");
+
+    private final String option;
+
+    PublicKeyFormat(String option) {
+        this.option = option;
+    }
+
+    /**
+     * Parses the format option of a plugin call, defaulting to BASE64 when absent.
+     */
+    public static PublicKeyFormat fromOption(@Nullable String format) {
+        if (format == null) {
+            return BASE64;
+        }
+        for (PublicKeyFormat value : values()) {
+            if (value.option.equals(format)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unsupported public key format '%s'", format));
+    }
+}
@@ -1,155 +1,693 @@
 package com.zkorum.capacitor.securesigning;
 
-import android.security.keystore.KeyGenParameterSpec;
-import android.security.keystore.KeyProperties;
+import androidx.annotation.Nullable;
+import java.io.File;
 import java.io.IOException;
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidAlgorithmParameterException;
-import java.security.InvalidKeyException;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
 import java.security.KeyPair;
-import java.security.KeyPairGenerator;
-import java.security.KeyStore;
-import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
-import java.security.NoSuchProviderException;
-import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.Signature;
 import java.security.SignatureException;
-import java.security.UnrecoverableEntryException;
-import java.security.cert.Certificate;
-import java.security.cert.CertificateException;
-import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
 import java.util.Base64;
-import org.bouncycastle.asn1.ASN1Integer;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import org.bouncycastle.asn1.ASN1Sequence;
 import org.bouncycastle.asn1.DERBitString;
 import org.bouncycastle.asn1.DERSequence;
-import org.bouncycastle.crypto.signers.PlainDSAEncoding;
-import org.bouncycastle.math.ec.custom.sec.SecP256R1Curve;
 
 public class SecureSigning {
 
-    private static final String ANDROID_KEY_STORE = "AndroidKeyStore";
+    private static final int ENTRY_CACHE_SIZE = 32;
+    private static final int FILE_READ_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_SIGN_SESSIONS = 8;
+    private static final long SIGN_SESSION_TIMEOUT_MS = 60_000;
+    private static final int MAX_SESSION_KEYS = 16;
+
+    // Reused read buffer of signFile, its content never leaves the signing thread
+    private static final ThreadLocal<ByteBuffer> FILE_READ_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(FILE_READ_BUFFER_SIZE));
+
+    /**
+     * An initialized Signature, with the algorithm of its key to encode what it produces.
+     */
+    private static final class Signer {
+
+        final Signature signature;
+        final SigningAlgorithm algorithm;
+
+        Signer(Signature signature, SigningAlgorithm algorithm) {
+            this.signature = signature;
+            this.algorithm = algorithm;
+        }
+    }
+
+    private final KeyBackend backend;
+
+    // Backend aliases of the keys taken from the pool, by caller alias
+    private final AliasStore aliasStore;
+
+    @Nullable
+    private volatile KeyPool keyPool;
+
+    // Resolved entries by backend alias, so steady-state signing skips the keystore lookups
+    private final BoundedLruCache<String, KeyPair> entryCache = new BoundedLruCache<>(ENTRY_CACHE_SIZE);
+
+    // Encoded public keys by backend alias, invalidated together with the entry cache
+    private final BoundedLruCache<String, PublicKeyEncodings> publicKeyCache = new BoundedLruCache<>(ENTRY_CACHE_SIZE);
+
+    // Aliases of the backend, answers existence checks without touching key material
+    private final AliasIndex aliasIndex;
+
+    // Generations in flight by alias, shared by concurrent createKeyPairIfDoesNotExist calls
+    private final ConcurrentHashMap<String, CompletableFuture<KeyPair>> pendingGenerations = new ConcurrentHashMap<>();
+
+    private final SignatureVerifier verifier = new SignatureVerifier();
+
+    // Software keys certified by a hardware key, for high-rate signing
+    private final SessionKeys sessionKeys = new SessionKeys(MAX_SESSION_KEYS);
+
+    // Open streaming signatures, each pinning one initialized Signature
+    private final SignSessions signSessions = new SignSessions(MAX_SIGN_SESSIONS, SIGN_SESSION_TIMEOUT_MS);
+
+    public SecureSigning() {
+        this(new AndroidKeyStoreBackend());
+    }
+
+    public SecureSigning(KeyBackend backend) {
+        this(backend, new InMemoryAliasStore());
+    }
+
+    public SecureSigning(KeyBackend backend, AliasStore aliasStore) {
+        this.backend = backend;
+        this.aliasStore = aliasStore;
+        this.aliasIndex = new AliasIndex(backend);
+    }
+
+    /**
+     * Starts pre-generating up to size key pairs with the given options in the background.
+     * Generating a key pair with the same options then claims a pooled one when available.
+     */
+    public synchronized void startKeyPool(int size, KeyGenOptions options) {
+        this.stopKeyPool();
+        KeyPool pool = new KeyPool(backend, aliasIndex, aliasStore, size, options);
+        pool.start();
+        keyPool = pool;
+    }
+
+    public synchronized void stopKeyPool() {
+        KeyPool pool = keyPool;
+        if (pool != null) {
+            pool.shutdown();
+            keyPool = null;
+        }
+    }
+
+    /**
+     * Returns the backend alias of the key of the given alias: the pooled key it was mapped to, or the alias itself.
+     */
+    private String resolve(String prefixedKey) {
+        String alias = aliasStore.get(prefixedKey);
+        return alias != null ? alias : prefixedKey;
+    }
 
     public KeyPair generateKeyPair(String prefixedKey) throws SecureSigningException {
-        /*
-         * Generate a new EC key pair entry in the Android Keystore by
-         * using the KeyPairGenerator API. The private key can only be
-         * used for signing or verification and only with SHA-256 or
-         * SHA-512 as the message digest.
-         */
-        KeyPairGenerator kpg = null;
+        return this.generateKeyPair(prefixedKey, KeyGenOptions.DEFAULT);
+    }
+
+    public KeyPair generateKeyPair(String prefixedKey, KeyGenOptions options) throws SecureSigningException {
+        // the alias is about to point to a new key: drop stale handles,
+        // including any cached by a concurrent lookup during generation
+        String previousAlias = this.resolve(prefixedKey);
+        this.invalidate(previousAlias);
+        // session keys certified by the replaced key must not outlive it
+        sessionKeys.removeAll(prefixedKey);
+        KeyPair keyPair = this.claimPooledKeyPair(prefixedKey, options);
+        if (keyPair == null) {
+            long start = SecureSigningMetrics.start();
+            try {
+                keyPair = backend.generate(prefixedKey, options);
+            } catch (SecureSigningException e) {
+                // a previous key may or may not have been replaced
+                aliasIndex.invalidate();
+                throw e;
+            }
+            SecureSigningMetrics.record(SecureSigningMetrics.Phase.keyGeneration, start);
+            aliasIndex.add(prefixedKey);
+            aliasStore.remove(prefixedKey);
+        }
+        String alias = this.resolve(prefixedKey);
+        if (!alias.equals(previousAlias)) {
+            // the replaced key lives under another backend alias, it was not overwritten
+            this.deleteReplacedKeyPair(previousAlias);
+        }
+        this.invalidate(alias);
+        publicKeyCache.put(alias, new PublicKeyEncodings(keyPair.getPublic()));
+        return keyPair;
+    }
+
+    /**
+     * Maps the given alias to a ready key pair of the pool, if any was generated with these options.
+     */
+    @Nullable
+    private KeyPair claimPooledKeyPair(String prefixedKey, KeyGenOptions options) throws SecureSigningException {
+        KeyPool pool = keyPool;
+        if (pool == null) {
+            return null;
+        }
+        for (String alias = pool.claim(options); alias != null; alias = pool.claim(options)) {
+            KeyPair keyPair = backend.lookup(alias);
+            if (keyPair != null) {
+                aliasStore.put(prefixedKey, alias);
+                return keyPair;
+            }
+        }
+        return null;
+    }
+
+    private void deleteReplacedKeyPair(String alias) {
+        try {
+            backend.delete(alias);
+            aliasIndex.remove(alias);
+        } catch (SecureSigningException e) {
+            // only leaves an unreachable key behind
+            e.printStackTrace();
+        }
+        this.invalidate(alias);
+    }
+
+    /**
+     * Returns the key pair for the given backend alias, served from the entry cache when possible.
+     * Returns null if no key pair exists for that alias.
+     */
+    @Nullable
+    private KeyPair lookupKeyPair(String alias) throws SecureSigningException {
+        KeyPair cached = entryCache.get(alias);
+        if (cached != null) {
+            return cached;
+        }
+        long start = SecureSigningMetrics.start();
+        KeyPair keyPair = backend.lookup(alias);
+        SecureSigningMetrics.record(SecureSigningMetrics.Phase.keyLookup, start);
+        if (keyPair != null) {
+            entryCache.put(alias, keyPair);
+        }
+        return keyPair;
+    }
+
+    private void invalidate(String alias) {
+        entryCache.remove(alias);
+        publicKeyCache.remove(alias);
+    }
+
+    /**
+     * Resolves the key for the given alias and returns a Signature ready to sign with it,
+     * using the signature algorithm of the key.
+     * After each sign() the returned object can be reused for the next payload.
+     */
+    private Signer initSigner(String prefixedKey) throws SecureSigningException {
+        return this.initSigner(prefixedKey, false);
+    }
+
+    /**
+     * @param prehashed whether the input is a digest computed by the caller, signed as-is
+     */
+    private Signer initSigner(String prefixedKey, boolean prehashed) throws SecureSigningException {
+        String alias = this.resolve(prefixedKey);
+        KeyPair keyPair = this.lookupKeyPair(alias);
+        if (keyPair == null) {
+            throw new SecureSigningException(SecureSigningException.ErrorKind.missingKey);
+        }
+        SigningAlgorithm algorithm = SigningAlgorithm.of(keyPair.getPublic());
+        if (prehashed && algorithm.getDigestLength() == 0) {
+            throw new SecureSigningException(
+                SecureSigningException.ErrorKind.invalidData,
+                new IllegalArgumentException(String.format("%s keys cannot sign prehashed digests", algorithm.getOption()))
+            );
+        }
+        long start = SecureSigningMetrics.start();
         try {
-            kpg = KeyPairGenerator.getInstance(KeyProperties.KEY_ALGORITHM_EC, ANDROID_KEY_STORE);
-            kpg.initialize(
-                new KeyGenParameterSpec.Builder(prefixedKey, KeyProperties.PURPOSE_SIGN | KeyProperties.PURPOSE_VERIFY)
-                    .setAlgorithmParameterSpec(new ECGenParameterSpec("secp256r1"))
-                    .setDigests(KeyProperties.DIGEST_SHA256, KeyProperties.DIGEST_SHA512)
-                    .build()
+            Signature s = backend.initSign(
+                keyPair.getPrivate(),
+                prehashed ? algorithm.getPrehashedSignatureAlgorithm() : algorithm.getSignatureAlgorithm()
             );
+            SecureSigningMetrics.record(SecureSigningMetrics.Phase.signerInit, start);
+            return new Signer(s, algorithm);
+        } catch (SecureSigningException e) {
+            // the key may have been invalidated (e.g. lock screen removed), do not keep serving it
+            this.invalidate(alias);
+            throw e;
+        }
+    }
 
-            return kpg.generateKeyPair();
-        } catch (NoSuchAlgorithmException | NoSuchProviderException | InvalidAlgorithmParameterException e) {
+    private String signWith(Signer signer, byte[] decodedData, SignatureFormat format) throws SecureSigningException {
+        try {
+            long start = SecureSigningMetrics.start();
+            signer.signature.update(decodedData);
+            byte[] signature = signer.signature.sign();
+            SecureSigningMetrics.record(SecureSigningMetrics.Phase.sign, start);
+            return encodeSignature(signature, signer.algorithm, format);
+        } catch (SignatureException e) {
             e.printStackTrace();
-            throw new SecureSigningException(SecureSigningException.ErrorKind.keyGenerationError, e);
+            throw new SecureSigningException(SecureSigningException.ErrorKind.invalidData, e);
+        }
+    }
+
+    private static String encodeSignature(byte[] signature, SigningAlgorithm algorithm, SignatureFormat format)
+        throws SignatureException {
+        long start = SecureSigningMetrics.start();
+        String encoded = Base64.getEncoder().encodeToString(format == SignatureFormat.DER ? signature : toP1363(signature, algorithm));
+        SecureSigningMetrics.record(SecureSigningMetrics.Phase.signatureEncoding, start);
+        return encoded;
+    }
+
+    /**
+     * Returns the fixed-length form of a signature, in a buffer reused by the calling thread.
+     * Ed25519 signatures are already fixed-length and returned as-is.
+     */
+    private static byte[] toP1363(byte[] signature, SigningAlgorithm algorithm) throws SignatureException {
+        P1363Converter converter = algorithm.getConverter();
+        if (converter == null) {
+            return signature;
+        }
+        byte[] p1363Signature = converter.threadBuffer();
+        converter.toP1363(signature, p1363Signature);
+        return p1363Signature;
+    }
+
+    public String sign(String prefixedKey, byte[] decodedData) throws SecureSigningException {
+        return this.sign(prefixedKey, decodedData, SignatureFormat.P1363);
+    }
+
+    public String sign(String prefixedKey, byte[] decodedData, SignatureFormat format) throws SecureSigningException {
+        Signer signer = this.initSigner(prefixedKey);
+        return this.signWith(signer, decodedData, format);
+    }
+
+    /**
+     * Signs a digest computed by the caller, without hashing it again. The key must have been
+     * generated with DIGEST_NONE among its digests, and the digest must match its algorithm
+     * (32 bytes for ES256, 48 for ES384). Ed25519 keys cannot sign digests.
+     */
+    public String signDigest(String prefixedKey, byte[] digest, SignatureFormat format) throws SecureSigningException {
+        Signer signer = this.initSigner(prefixedKey, true);
+        int digestLength = signer.algorithm.getDigestLength();
+        if (digest.length != digestLength) {
+            throw new SecureSigningException(
+                SecureSigningException.ErrorKind.invalidData,
+                new IllegalArgumentException(String.format("Expected a %d bytes digest, got %d", digestLength, digest.length))
+            );
+        }
+        return this.signWith(signer, digest, format);
+    }
+
+    /**
+     * Signs every payload with the same key, resolving the key and initializing the signer once.
+     * A null payload, or one that fails to sign, produces an error result at its index
+     * without aborting the rest of the batch.
+     */
+    public BatchSignResult[] signBatch(String prefixedKey, byte[][] decodedData, SignatureFormat format)
+        throws SecureSigningException {
+        BatchSignResult[] results = new BatchSignResult[decodedData.length];
+        Signer signer = this.initSigner(prefixedKey);
+        for (int i = 0; i < decodedData.length; i++) {
+            if (decodedData[i] == null) {
+                results[i] = BatchSignResult.failure(new SecureSigningException(SecureSigningException.ErrorKind.invalidData));
+                continue;
+            }
+            try {
+                if (signer == null) {
+                    // the signer state is undefined after a failure, start over from a fresh one
+                    // if that fails too (e.g. key invalidated, keystore busy), only this item fails
+                    signer = this.initSigner(prefixedKey);
+                }
+                results[i] = BatchSignResult.success(this.signWith(signer, decodedData[i], format));
+            } catch (SecureSigningException e) {
+                results[i] = BatchSignResult.failure(e);
+                signer = null;
+            }
         }
+        return results;
+    }
+
+    /**
+     * Returns the JWS algorithm ("ES256", "ES384" or "EdDSA") of the key of the given alias.
+     */
+    public String getJwsAlgorithm(String prefixedKey) throws SecureSigningException {
+        return this.getPublicKeyEncodings(prefixedKey).getAlgorithm().getJwsAlgorithm();
     }
 
-    public KeyStore getKeyStore() throws SecureSigningException {
-        KeyStore keyStore = null;
+    /**
+     * Returns the JWS compact serialization (RFC 7515) of the given JSON header and payload,
+     * signed with the key: base64url(header) '.' base64url(payload) '.' base64url(P1363 signature).
+     * The header must declare the JWS algorithm of the key, see getJwsAlgorithm.
+     */
+    public String signJws(String prefixedKey, String header, String payload) throws SecureSigningException {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String signingInput =
+            encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8)) +
+            '.' +
+            encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        Signer signer = this.initSigner(prefixedKey);
         try {
-            keyStore = KeyStore.getInstance(ANDROID_KEY_STORE);
-        } catch (KeyStoreException e) {
+            long start = SecureSigningMetrics.start();
+            signer.signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            byte[] signature = signer.signature.sign();
+            SecureSigningMetrics.record(SecureSigningMetrics.Phase.sign, start);
+            start = SecureSigningMetrics.start();
+            String token = signingInput + '.' + encoder.encodeToString(toP1363(signature, signer.algorithm));
+            SecureSigningMetrics.record(SecureSigningMetrics.Phase.signatureEncoding, start);
+            return token;
+        } catch (SignatureException e) {
             e.printStackTrace();
-            throw new SecureSigningException(SecureSigningException.ErrorKind.keystoreError, e);
+            throw new SecureSigningException(SecureSigningException.ErrorKind.invalidData, e);
+        }
+    }
+
+    /**
+     * Creates an in-memory software P-256 key that can sign in place of the hardware key of the given alias
+     * for ttlMillis, and at most maxUses times if positive. The returned delegation token, signed once with
+     * the hardware key and its algorithm, certifies it. Session keys always sign ES256, whatever that algorithm.
+     */
+    public SessionKeyDelegation createSessionKey(String prefixedKey, long ttlMillis, int maxUses) throws SecureSigningException {
+        if (ttlMillis <= 0) {
+            throw new SecureSigningException(SecureSigningException.ErrorKind.invalidData, new IllegalArgumentException("ttl must be positive"));
+        }
+        KeyPair keyPair = SoftwareKeys.generateKeyPair(SigningAlgorithm.ES256);
+        PublicKeyEncodings publicKey = new PublicKeyEncodings(keyPair.getPublic());
+        long issuedAt = System.currentTimeMillis() / 1000;
+        // did:key identifiers are base58, they need no JSON escaping
+        StringBuilder payload = new StringBuilder()
+            .append("{\"iss\":\"")
+            .append(this.getPublicKeyEncodings(prefixedKey).get(PublicKeyFormat.DID_KEY))
+            .append("\",\"sub\":\"")
+            .append(publicKey.get(PublicKeyFormat.DID_KEY))
+            .append("\",\"iat\":")
+            .append(issuedAt)
+            .append(",\"exp\":")
+            .append(issuedAt + (ttlMillis + 999) / 1000);
+        if (maxUses > 0) {
+            payload.append(",\"maxUses\":").append(maxUses);
         }
+        payload.append('}');
+        String header = "{\"alg\":\"" + this.getJwsAlgorithm(prefixedKey) + "\",\"typ\":\"JWT\"}";
+        String token = this.signJws(prefixedKey, header, payload.toString());
+        String sessionId = sessionKeys.add(new SessionKeys.SessionKey(prefixedKey, keyPair, ttlMillis, maxUses));
+        return new SessionKeyDelegation(sessionId, publicKey, token);
+    }
+
+    /**
+     * Signs with a session key, in software, always ES256. Throws invalidSession once it has expired or is used up.
+     */
+    public String signWithSession(String sessionId, byte[] decodedData, SignatureFormat format) throws SecureSigningException {
+        long start = SecureSigningMetrics.start();
+        byte[] derSignature = sessionKeys.sign(sessionId, decodedData);
+        SecureSigningMetrics.record(SecureSigningMetrics.Phase.sign, start);
         try {
-            keyStore.load(null);
-        } catch (CertificateException | IOException | NoSuchAlgorithmException e) {
+            return encodeSignature(derSignature, SigningAlgorithm.ES256, format);
+        } catch (SignatureException e) {
             e.printStackTrace();
-            throw new SecureSigningException(SecureSigningException.ErrorKind.keystoreError, e);
+            throw new SecureSigningException(SecureSigningException.ErrorKind.invalidData, e);
         }
-        return keyStore;
     }
 
-    // This is inspired by:
-    // - https://gist.github.com/DinoChiesa/7520e1dea6e79888acab8ea8206afe92
-    // - https://stackoverflow.com/a/72415832
-    // -
-    // https://www.tabnine.com/code/java/classes/org.bouncycastle.math.ec.custom.sec.SecP256R1Curve?snippet=5ce6bbffe594670004db5c23
-    private byte[] toP1363(byte[] asn1EncodedSignature) {
-        ASN1Sequence seq = ASN1Sequence.getInstance(asn1EncodedSignature);
-        BigInteger r = ((ASN1Integer) seq.getObjectAt(0)).getValue();
-        BigInteger s = ((ASN1Integer) seq.getObjectAt(1)).getValue();
-        BigInteger n = new SecP256R1Curve().getOrder();
-        return PlainDSAEncoding.INSTANCE.encode(n, r, s);
+    /**
+     * Signs the SHA-256 Merkle root (RFC 6962) of the given messages with a single signature,
+     * and returns it with an inclusion proof per message. The root is signed as a 32 bytes message.
+     */
+    public MerkleBatchSignature signMerkleBatch(String prefixedKey, byte[][] messages, SignatureFormat format)
+        throws SecureSigningException {
+        MerkleTree tree;
+        try {
+            tree = MerkleTree.build(messages);
+        } catch (IllegalArgumentException e) {
+            throw new SecureSigningException(SecureSigningException.ErrorKind.invalidData, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new SecureSigningException(SecureSigningException.ErrorKind.osError, e);
+        }
+        Signer signer = this.initSigner(prefixedKey);
+        return new MerkleBatchSignature(tree, this.signWith(signer, tree.getRoot(), format));
     }
 
-    public String sign(String prefixedKey, byte[] decodedData) throws SecureSigningException {
-        KeyStore ks = this.getKeyStore();
-        KeyStore.Entry entry = null;
+    /**
+     * Returns whether message is at index of a batch of treeSize messages whose Merkle root was signed
+     * with signature by the given public key, as returned by signMerkleBatch.
+     */
+    public boolean verifyMerkleProof(
+        String publicKey,
+        byte[] message,
+        int index,
+        int treeSize,
+        List<byte[]> proof,
+        byte[] signature,
+        SignatureFormat format
+    ) throws SecureSigningException {
+        byte[] root;
         try {
-            entry = ks.getEntry(prefixedKey, null);
-            if (entry == null) {
-                throw new SecureSigningException(SecureSigningException.ErrorKind.missingKey);
+            root = MerkleTree.rootFromProof(message, index, treeSize, proof);
+        } catch (NoSuchAlgorithmException e) {
+            throw new SecureSigningException(SecureSigningException.ErrorKind.osError, e);
+        }
+        return root != null && verifier.verify(publicKey, root, signature, format);
+    }
+
+    /**
+     * Signs length bytes of the file starting at offset, or up to the end of the file if length is negative.
+     * The file is read through a small reused buffer, so neither the file nor a mapping of it is held in memory.
+     */
+    public String signFile(String prefixedKey, File file, long offset, long length, SignatureFormat format)
+        throws SecureSigningException {
+        Signer signer = this.initSigner(prefixedKey);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (offset < 0 || offset > size || (length >= 0 && length > size - offset)) {
+                throw new SecureSigningException(
+                    SecureSigningException.ErrorKind.invalidData,
+                    new IllegalArgumentException(String.format("Range is outside of the %d bytes file", size))
+                );
             }
-            if (!(entry instanceof KeyStore.PrivateKeyEntry)) {
-                throw new SecureSigningException(SecureSigningException.ErrorKind.missingKey);
+            long end = length < 0 ? size : offset + length;
+            long start = SecureSigningMetrics.start();
+            ByteBuffer buffer = FILE_READ_BUFFER.get();
+            for (long position = offset; position < end;) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("File was truncated while being signed");
+                }
+                buffer.flip();
+                signer.signature.update(buffer);
+                position += read;
             }
-            // creates DER/ASN1-encoded signature
-            // (plain P1363 output is not available with AndroidKeyStore as Provider)
-            Signature s = Signature.getInstance("SHA256withECDSA");
+            byte[] signature = signer.signature.sign();
+            SecureSigningMetrics.record(SecureSigningMetrics.Phase.sign, start);
+            return encodeSignature(signature, signer.algorithm, format);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new SecureSigningException(SecureSigningException.ErrorKind.osError, e);
+        } catch (SignatureException e) {
+            e.printStackTrace();
+            throw new SecureSigningException(SecureSigningException.ErrorKind.invalidData, e);
+        }
+    }
+
+    /**
+     * Opens a streaming signature with the key of the given alias and returns its session id.
+     * Feed the payload with updateSign, then get the signature with finishSign.
+     */
+    public String beginSign(String prefixedKey) throws SecureSigningException {
+        // reserved before the keystore operation is started, so the cap bounds those too
+        signSessions.reserve();
+        Signer signer;
+        try {
+            signer = this.initSigner(prefixedKey);
+        } catch (SecureSigningException | RuntimeException e) {
+            signSessions.release();
+            throw e;
+        }
+        return signSessions.open(prefixedKey, signer.signature, signer.algorithm);
+    }
+
+    public void updateSign(String sessionId, byte[] decodedChunk) throws SecureSigningException {
+        SignSessions.Session session = signSessions.get(sessionId);
+        synchronized (session) {
             try {
-                s.initSign(((KeyStore.PrivateKeyEntry) entry).getPrivateKey());
-                s.update(decodedData);
-                byte[] derSignature = s.sign();
-                byte[] p1363Signature = toP1363(derSignature);
-                return new String(Base64.getEncoder().encode(p1363Signature), StandardCharsets.UTF_8);
-            } catch (InvalidKeyException | SignatureException e) {
+                session.signer.update(decodedChunk);
+            } catch (SignatureException e) {
+                signSessions.close(sessionId);
                 e.printStackTrace();
                 throw new SecureSigningException(SecureSigningException.ErrorKind.invalidData, e);
             }
-        } catch (KeyStoreException | NoSuchAlgorithmException | UnrecoverableEntryException e) {
-            e.printStackTrace();
-            throw new SecureSigningException(SecureSigningException.ErrorKind.keystoreError, e);
         }
     }
 
-    public boolean doesKeyPairExist(String prefixedKey) throws SecureSigningException {
-        KeyStore ks = this.getKeyStore();
-        KeyStore.Entry entry = null;
+    public String finishSign(String sessionId, SignatureFormat format) throws SecureSigningException {
+        SignSessions.Session session = signSessions.get(sessionId);
+        signSessions.close(sessionId);
+        synchronized (session) {
+            try {
+                long start = SecureSigningMetrics.start();
+                byte[] signature = session.signer.sign();
+                SecureSigningMetrics.record(SecureSigningMetrics.Phase.sign, start);
+                return encodeSignature(signature, session.algorithm, format);
+            } catch (SignatureException e) {
+                e.printStackTrace();
+                throw new SecureSigningException(SecureSigningException.ErrorKind.invalidData, e);
+            }
+        }
+    }
+
+    /**
+     * Closes a streaming signature without signing, freeing its slot. Unknown sessions are ignored.
+     */
+    public void cancelSign(String sessionId) {
+        signSessions.close(sessionId);
+    }
+
+    /**
+     * Returns the alias a signing session was opened with, or null if there is no such session.
+     */
+    @Nullable
+    public String getSignSessionKey(String sessionId) {
+        SignSessions.Session session = signSessions.peek(sessionId);
+        return session == null ? null : session.prefixedKey;
+    }
+
+    /**
+     * Initializes the security providers and Signature classes, and the BouncyCastle code used to
+     * encode and verify signatures, by signing and verifying once with a throwaway software key.
+     */
+    public void warmUpProviders() throws SecureSigningException {
+        SigningAlgorithm algorithm = SigningAlgorithm.ES256;
+        KeyPair keyPair = SoftwareKeys.generateKeyPair(algorithm);
+        byte[] data = new byte[1];
         try {
-            entry = ks.getEntry(prefixedKey, null);
-            return entry != null;
-        } catch (KeyStoreException | NoSuchAlgorithmException | UnrecoverableEntryException e) {
+            Signature s = SigningAlgorithm.newSignature(algorithm.getSignatureAlgorithm(), keyPair.getPrivate());
+            s.initSign(keyPair.getPrivate());
+            s.update(data);
+            byte[] signature = toP1363(s.sign(), algorithm);
+            String publicKey = new PublicKeyEncodings(keyPair.getPublic()).get(PublicKeyFormat.COMPRESSED);
+            verifier.verify(publicKey, data, signature, SignatureFormat.P1363);
+        } catch (GeneralSecurityException e) {
             e.printStackTrace();
-            throw new SecureSigningException(SecureSigningException.ErrorKind.keystoreError, e);
+            throw new SecureSigningException(SecureSigningException.ErrorKind.osError, e);
+        }
+    }
+
+    /**
+     * Loads the backend (the AndroidKeyStore) and its aliases.
+     */
+    public void warmUpKeyStore() throws SecureSigningException {
+        aliasIndex.load();
+    }
+
+    /**
+     * Loads the entry and the public key encodings of the given alias into the caches,
+     * so its first signature skips the keystore lookups. Returns false if there is no such key.
+     * No signer is initialized: on the AndroidKeyStore that would begin an operation nothing finishes.
+     */
+    public boolean warmUpKey(String prefixedKey) throws SecureSigningException {
+        if (!this.doesKeyPairExist(prefixedKey) || this.lookupKeyPair(this.resolve(prefixedKey)) == null) {
+            return false;
         }
+        this.getPublicKeyEncodings(prefixedKey);
+        return true;
+    }
+
+    public boolean doesKeyPairExist(String prefixedKey) throws SecureSigningException {
+        return aliasIndex.contains(this.resolve(prefixedKey));
+    }
+
+    /**
+     * Returns the aliases of the existing key pairs starting with the given prefix, sorted.
+     * Pooled keys are listed under the alias they were claimed for.
+     */
+    public List<String> listKeys(String prefix) throws SecureSigningException {
+        TreeSet<String> keys = new TreeSet<>();
+        for (String alias : aliasIndex.list(prefix)) {
+            if (!KeyPool.isPoolAlias(alias)) {
+                keys.add(alias);
+            }
+        }
+        for (Map.Entry<String, String> mapping : aliasStore.getAll().entrySet()) {
+            if (mapping.getKey().startsWith(prefix) && aliasIndex.contains(mapping.getValue())) {
+                keys.add(mapping.getKey());
+            }
+        }
+        return new ArrayList<>(keys);
     }
 
     public KeyPair createKeyPairIfDoesNotExist(String prefixedKey) throws SecureSigningException {
-        KeyStore ks = this.getKeyStore();
-        KeyStore.Entry entry = null;
+        return this.createKeyPairIfDoesNotExist(prefixedKey, KeyGenOptions.DEFAULT);
+    }
+
+    /**
+     * Returns the existing key pair of the given alias, or generates one with the given options.
+     * Concurrent calls for the same alias share a single generation and all return its key pair.
+     */
+    public KeyPair createKeyPairIfDoesNotExist(String prefixedKey, KeyGenOptions options) throws SecureSigningException {
+        KeyPair keyPair = this.lookupKeyPair(this.resolve(prefixedKey));
+        if (keyPair != null) {
+            return keyPair;
+        }
+        CompletableFuture<KeyPair> generation = new CompletableFuture<>();
+        CompletableFuture<KeyPair> inFlight = pendingGenerations.putIfAbsent(prefixedKey, generation);
+        if (inFlight != null) {
+            return awaitGeneration(inFlight);
+        }
         try {
-            entry = ks.getEntry(prefixedKey, null);
-            if (entry == null) {
-                return this.generateKeyPair(prefixedKey);
+            // a generation may have completed between the lookup and the registration of this one
+            keyPair = this.lookupKeyPair(this.resolve(prefixedKey));
+            if (keyPair == null) {
+                keyPair = this.generateKeyPair(prefixedKey, options);
             }
-            if (!(entry instanceof KeyStore.PrivateKeyEntry)) {
-                throw new SecureSigningException(SecureSigningException.ErrorKind.missingKey);
+            generation.complete(keyPair);
+            return keyPair;
+        } catch (SecureSigningException | RuntimeException e) {
+            generation.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingGenerations.remove(prefixedKey, generation);
+        }
+    }
+
+    private static KeyPair awaitGeneration(CompletableFuture<KeyPair> generation) throws SecureSigningException {
+        try {
+            return generation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SecureSigningException) {
+                throw (SecureSigningException) e.getCause();
             }
-            PrivateKey privateKey = ((KeyStore.PrivateKeyEntry) entry).getPrivateKey();
-            Certificate cert = ((KeyStore.PrivateKeyEntry) entry).getCertificate();
-            PublicKey publicKey = cert.getPublicKey();
-            return new KeyPair(publicKey, privateKey);
-        } catch (KeyStoreException | NoSuchAlgorithmException | UnrecoverableEntryException e) {
-            e.printStackTrace();
-            throw new SecureSigningException(SecureSigningException.ErrorKind.keystoreError, e);
+            throw new SecureSigningException(SecureSigningException.ErrorKind.keyGenerationError, e.getCause());
         }
     }
 
+    /**
+     * Returns whether signature is a valid signature of data by the given base64-encoded public key.
+     * The algorithm is derived from the public key: ECDSA with SHA-256 on P-256, with SHA-384 on P-384,
+     * or Ed25519. Malformed signatures are reported as not valid.
+     */
+    public boolean verify(String publicKey, byte[] data, byte[] signature, SignatureFormat format) throws SecureSigningException {
+        return verifier.verify(publicKey, data, signature, format);
+    }
+
+    /**
+     * Verifies the items given as parallel arrays, spreading large batches across cores.
+     * An item with a null field produces an error result at its index.
+     */
+    public BatchVerifyResult[] verifyBatch(String[] publicKeys, byte[][] data, byte[][] signatures, SignatureFormat format) {
+        return verifier.verifyBatch(publicKeys, data, signatures, format);
+    }
+
     public byte[] ecFromPubKey(PublicKey pubKey) {
         // Extract the EC public key (65 bytes) from the DER encoded public key (91
         // bytes)
@@ -163,38 +701,45 @@ public class SecureSigning {
     }
 
     public DeleteStatus deleteKeyPair(String prefixedKey) throws SecureSigningException {
-        KeyStore ks = this.getKeyStore();
+        String alias = this.resolve(prefixedKey);
+        sessionKeys.removeAll(prefixedKey);
         try {
-            if (ks.containsAlias(prefixedKey)) {
-                ks.deleteEntry(prefixedKey);
-                return DeleteStatus.DELETED;
-            } else {
-                return DeleteStatus.NOT_FOUND;
-            }
-        } catch (KeyStoreException e) {
-            e.printStackTrace();
-            throw new SecureSigningException(SecureSigningException.ErrorKind.keystoreError, e);
+            DeleteStatus status = backend.delete(alias);
+            aliasIndex.remove(alias);
+            aliasStore.remove(prefixedKey);
+            return status;
+        } catch (SecureSigningException e) {
+            aliasIndex.invalidate();
+            throw e;
+        } finally {
+            this.invalidate(alias);
         }
     }
 
     public KeyPair getKeyPair(String prefixedKey) throws SecureSigningException {
-        KeyStore ks = this.getKeyStore();
-        KeyStore.Entry entry = null;
-        try {
-            entry = ks.getEntry(prefixedKey, null);
-            if (entry == null) {
-                throw new SecureSigningException(SecureSigningException.ErrorKind.missingKey);
-            }
-            if (!(entry instanceof KeyStore.PrivateKeyEntry)) {
-                throw new SecureSigningException(SecureSigningException.ErrorKind.missingKey);
-            }
-            PrivateKey privateKey = ((KeyStore.PrivateKeyEntry) entry).getPrivateKey();
-            Certificate cert = ((KeyStore.PrivateKeyEntry) entry).getCertificate();
-            PublicKey publicKey = cert.getPublicKey();
-            return new KeyPair(publicKey, privateKey);
-        } catch (KeyStoreException | NoSuchAlgorithmException | UnrecoverableEntryException e) {
-            e.printStackTrace();
-            throw new SecureSigningException(SecureSigningException.ErrorKind.keystoreError, e);
+        KeyPair keyPair = this.lookupKeyPair(this.resolve(prefixedKey));
+        if (keyPair == null) {
+            throw new SecureSigningException(SecureSigningException.ErrorKind.missingKey);
+        }
+        return keyPair;
+    }
+
+    /**
+     * Returns the public key of the given alias in all supported encodings,
+     * computed on first use and then served from cache.
+     */
+    public PublicKeyEncodings getPublicKeyEncodings(String prefixedKey) throws SecureSigningException {
+        String alias = this.resolve(prefixedKey);
+        PublicKeyEncodings cached = publicKeyCache.get(alias);
+        if (cached != null) {
+            return cached;
+        }
+        KeyPair keyPair = this.lookupKeyPair(alias);
+        if (keyPair == null) {
+            throw new SecureSigningException(SecureSigningException.ErrorKind.missingKey);
         }
+        PublicKeyEncodings encodings = new PublicKeyEncodings(keyPair.getPublic());
+        publicKeyCache.put(alias, encodings);
+        return encodings;
     }
 }
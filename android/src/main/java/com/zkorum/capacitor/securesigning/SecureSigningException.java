@@ -19,11 +19,14 @@ public class SecureSigningException extends Exception {
         errorMap.put(ErrorKind.secureLockScreenDisabled, "Secure lock screen is disabled: %s - %s");
         errorMap.put(ErrorKind.userNotAuthenticated, "User is not authenticated: %s - %s");
         errorMap.put(ErrorKind.osError, "An OS error occurred: %s - %s");
+        errorMap.put(ErrorKind.invalidSession, "Unknown or expired signing session: %s - %s");
+        errorMap.put(ErrorKind.busy, "Too many pending operations, try again later: %s - %s");
         errorMap.put(ErrorKind.unknownError, "An unknown error occurred: %s - %s");
     }
 
     private String message = "";
     private String code = "";
+    private ErrorKind kind = ErrorKind.unknownError;
 
     SecureSigningException(ErrorKind kind) {
         init(kind, null);
@@ -50,6 +53,7 @@ public class SecureSigningException extends Exception {
             }
         }
         this.code = kind.toString();
+        this.kind = kind;
     }
 
     public String getMessage() {
@@ -60,6 +64,10 @@ public class SecureSigningException extends Exception {
         return this.code;
     }
 
+    public ErrorKind getKind() {
+        return this.kind;
+    }
+
     public void rejectCall(PluginCall call) {
         call.reject(this.message, this.code);
     }
@@ -73,6 +81,8 @@ public class SecureSigningException extends Exception {
         secureLockScreenDisabled,
         userNotAuthenticated,
         osError,
+        invalidSession,
+        busy,
         unknownError
     }
 }
@@ -0,0 +1,112 @@
+package com.zkorum.capacitor.securesigning;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide latency metrics of the signing phases and of the plugin operations.
+ * Disabled by default: recording then costs a single volatile read.
+ *
+ * Usage: {@code long start = SecureSigningMetrics.start(); ...; SecureSigningMetrics.record(Phase.sign, start);}
+ */
+public final class SecureSigningMetrics {
+
+    public enum Phase {
+        keystoreLoad,
+        keyLookup,
+        keyGeneration,
+        signerInit,
+        sign,
+        signatureEncoding,
+        payloadDecoding,
+        queueWait
+    }
+
+    static final class OperationStats {
+
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLongArray errors = new AtomicLongArray(SecureSigningException.ErrorKind.values().length);
+    }
+
+    private static final class Registry {
+
+        final long since = System.currentTimeMillis();
+        final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+        final ConcurrentHashMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+        Registry() {
+            for (int i = 0; i < phases.length; i++) {
+                phases[i] = new LatencyHistogram();
+            }
+        }
+    }
+
+    private static volatile boolean enabled = false;
+    // swapped on reset, so recording never has to lock
+    private static volatile Registry registry = new Registry();
+
+    private SecureSigningMetrics() {}
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        SecureSigningMetrics.enabled = enabled;
+    }
+
+    public static void reset() {
+        registry = new Registry();
+    }
+
+    /**
+     * Returns the start time of a measured section, or 0 when metrics are disabled.
+     */
+    static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    static void record(Phase phase, long start) {
+        if (start == 0) {
+            return;
+        }
+        registry.phases[phase.ordinal()].record(System.nanoTime() - start);
+    }
+
+    /**
+     * Records the total duration of a plugin operation, and its error kind if it failed.
+     */
+    static void recordOperation(String operation, long start, SecureSigningException.ErrorKind error) {
+        if (start == 0) {
+            return;
+        }
+        OperationStats stats = registry.operations.computeIfAbsent(operation, name -> new OperationStats());
+        stats.latency.record(System.nanoTime() - start);
+        if (error != null) {
+            stats.errors.incrementAndGet(error.ordinal());
+        }
+    }
+
+    static long getSince() {
+        return registry.since;
+    }
+
+    static Map<Phase, LatencyHistogram.Snapshot> snapshotPhases() {
+        Registry current = registry;
+        EnumMap<Phase, LatencyHistogram.Snapshot> snapshot = new EnumMap<>(Phase.class);
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = current.phases[phase.ordinal()];
+            if (histogram.getCount() > 0) {
+                snapshot.put(phase, histogram.snapshot());
+            }
+        }
+        return snapshot;
+    }
+
+    static Map<String, OperationStats> snapshotOperations() {
+        return new HashMap<>(registry.operations);
+    }
+}
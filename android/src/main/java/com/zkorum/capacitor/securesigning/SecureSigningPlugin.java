@@ -1,21 +1,29 @@
 package com.zkorum.capacitor.securesigning;
 
 import android.security.keystore.UserNotAuthenticatedException;
+import androidx.annotation.Nullable;
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
+import java.io.File;
 import java.io.IOException;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
-import java.security.KeyPair;
 import java.security.KeyStoreException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
-import org.bouncycastle.asn1.ASN1Sequence;
-import org.bouncycastle.asn1.DERBitString;
-import org.bouncycastle.asn1.DERSequence;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 
 interface StorageOp {
     void run() throws SecureSigningException, GeneralSecurityException, IOException;
@@ -24,39 +32,197 @@ interface StorageOp {
 @CapacitorPlugin(name = "SecureSigning")
 public class SecureSigningPlugin extends Plugin {
 
-    // @Override
-    // public void load() {
-    // super.load();
-    // implementation.init();
-    // }
+    // Pending operations allowed per executor stripe before calls are rejected as busy
+    private static final int EXECUTOR_QUEUE_CAPACITY = 64;
 
+    private static final String WARM_UP_EVENT = "warmUpProgress";
+
+    @Override
+    public void load() {
+        super.load();
+        // in-memory software keys, for development builds and testing without secure hardware
+        if ("memory".equals(getConfig().getString("keyBackend", "androidKeyStore"))) {
+            implementation = new SecureSigning(new InMemoryKeyBackend());
+        } else {
+            // pooled keys must stay reachable across restarts, even once the pool is disabled
+            implementation = new SecureSigning(new AndroidKeyStoreBackend(), new SharedPreferencesAliasStore(getContext()));
+        }
+        SecureSigningMetrics.setEnabled(getConfig().getBoolean("metrics", false));
+        int keyPoolSize = getConfig().getInt("keyPoolSize", 0);
+        if (keyPoolSize > 0) {
+            boolean strongBox = getConfig().getBoolean("keyPoolStrongBox", false);
+            implementation.startKeyPool(keyPoolSize, new KeyGenOptions(KeyGenOptions.DEFAULT.getDigests(), strongBox));
+        }
+        // off the main thread, so the first signature does not pay for the initialization
+        List<String> warmUpKeys = Arrays.asList(getConfig().getArray("warmUpKeys", new String[0]));
+        warmUp = new WarmUp(
+            implementation,
+            warmUpKeys,
+            status -> notifyListeners(WARM_UP_EVENT, encodeWarmUpStatus(status), status.isFinished())
+        );
+        if (getConfig().getBoolean("warmUp", true)) {
+            warmUp.start();
+        }
+    }
+
+    /**
+     * Returns a required string argument of a plugin call.
+     * Rejects the call and returns null if it is missing or empty: callers must return without rejecting again.
+     */
+    @Nullable
     private String getKeyParam(PluginCall call, String keyToGet) {
         String key = call.getString(keyToGet);
 
         if (key != null && !key.isEmpty()) {
             return key;
         }
-        SecureSigningException.reject(call, SecureSigningException.ErrorKind.capacitorError);
+        SecureSigningException.reject(
+            call,
+            SecureSigningException.ErrorKind.capacitorError,
+            new IllegalArgumentException(String.format("%s is null or empty", keyToGet))
+        );
 
         return null;
     }
 
-    private final SecureSigning implementation = new SecureSigning();
+    private static byte[] decodePayload(String data) {
+        long start = SecureSigningMetrics.start();
+        byte[] decoded = Base64.getDecoder().decode(data.getBytes(StandardCharsets.UTF_8));
+        SecureSigningMetrics.record(SecureSigningMetrics.Phase.payloadDecoding, start);
+        return decoded;
+    }
+
+    /**
+     * Decodes a base64 argument of a plugin call.
+     * Rejects the call with invalidData and returns null if it is malformed.
+     */
+    @Nullable
+    private static byte[] decodeArgument(PluginCall call, String name, String encoded) {
+        try {
+            return decodePayload(encoded);
+        } catch (IllegalArgumentException e) {
+            SecureSigningException.reject(
+                call,
+                SecureSigningException.ErrorKind.invalidData,
+                new IllegalArgumentException(String.format("%s is not valid base64", name), e)
+            );
+            return null;
+        }
+    }
+
+    /**
+     * Reads an integer argument of a plugin call, or returns null if it is missing or not a number.
+     * JS numbers arrive as Integer, Long or Double depending on their value, while
+     * PluginCall.getLong only accepts values that are already a Long.
+     */
+    @Nullable
+    static Long getLongParam(PluginCall call, String name) {
+        Object value = call.getData().opt(name);
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+
+    @Nullable
+    private SignatureFormat getSignatureFormat(PluginCall call) {
+        try {
+            return SignatureFormat.fromOption(call.getString("format"));
+        } catch (IllegalArgumentException e) {
+            call.reject(e.getMessage());
+            return null;
+        }
+    }
+
+    @Nullable
+    private PublicKeyFormat getPublicKeyFormat(PluginCall call) {
+        try {
+            return PublicKeyFormat.fromOption(call.getString("format"));
+        } catch (IllegalArgumentException e) {
+            call.reject(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Parses the keyOptions of a plugin call, defaulting to KeyGenOptions.DEFAULT when absent.
+     * Rejects the call and returns null if they are invalid.
+     */
+    @Nullable
+    private KeyGenOptions getKeyGenOptions(PluginCall call) {
+        JSObject keyOptions = call.getObject("keyOptions");
+        if (keyOptions == null) {
+            return KeyGenOptions.DEFAULT;
+        }
+        try {
+            String[] digests = KeyGenOptions.DEFAULT.getDigests();
+            JSONArray encodedDigests = keyOptions.optJSONArray("digests");
+            if (encodedDigests != null) {
+                digests = new String[encodedDigests.length()];
+                for (int i = 0; i < encodedDigests.length(); i++) {
+                    digests[i] = encodedDigests.getString(i);
+                }
+            }
+            SigningAlgorithm algorithm = SigningAlgorithm.fromOption(keyOptions.getString("algorithm", null));
+            return new KeyGenOptions(algorithm, digests, keyOptions.optBoolean("strongBox", false));
+        } catch (JSONException | IllegalArgumentException e) {
+            call.reject(String.format("Invalid keyOptions: %s", e.getMessage()));
+            return null;
+        }
+    }
+
+    private SecureSigning implementation = new SecureSigning();
+
+    private WarmUp warmUp;
+
+    private final StripedExecutor executor = new StripedExecutor(
+        "SecureSigning",
+        Math.max(2, Runtime.getRuntime().availableProcessors()),
+        EXECUTOR_QUEUE_CAPACITY
+    );
+
+    // Verifications never touch the keystore, so they do not queue behind key operations
+    private final StripedExecutor verifyExecutor = new StripedExecutor(
+        "SecureSigning-verify",
+        Math.max(2, Runtime.getRuntime().availableProcessors()),
+        EXECUTOR_QUEUE_CAPACITY
+    );
+
+    public SecureSigningPlugin() {}
+
+    /**
+     * Runs the plugin methods on the given implementation, without loading the plugin in a bridge. For host tests.
+     */
+    SecureSigningPlugin(SecureSigning implementation) {
+        this.implementation = implementation;
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        warmUp.shutdown();
+        implementation.stopKeyPool();
+        executor.shutdown();
+        verifyExecutor.shutdown();
+        super.handleOnDestroy();
+    }
 
     @PluginMethod
     public void generateKeyPair(PluginCall call) {
         String prefixedKey = this.getKeyParam(call, "prefixedKey");
-        if (prefixedKey == null || prefixedKey.isEmpty()) {
-            call.reject("prefixedKey is null or empty");
+        if (prefixedKey == null) {
             return;
         }
-        tryStorageOp(
+        PublicKeyFormat format = this.getPublicKeyFormat(call);
+        if (format == null) {
+            return;
+        }
+        KeyGenOptions keyOptions = this.getKeyGenOptions(call);
+        if (keyOptions == null) {
+            return;
+        }
+        runStorageOp(
             call,
+            prefixedKey,
             () -> {
-                KeyPair kp = implementation.generateKeyPair(prefixedKey);
-                byte[] ecPublicKeyBytes = implementation.ecFromPubKey(kp.getPublic());
-                // Encode to Base64 and send
-                String encodedPublicKey = new String(Base64.getEncoder().encode(ecPublicKeyBytes), StandardCharsets.UTF_8);
+                implementation.generateKeyPair(prefixedKey, keyOptions);
+                String encodedPublicKey = implementation.getPublicKeyEncodings(prefixedKey).get(format);
                 JSObject ret = new JSObject();
                 ret.put("publicKey", encodedPublicKey);
                 call.resolve(ret);
@@ -67,12 +233,12 @@ public class SecureSigningPlugin extends Plugin {
     @PluginMethod
     public void doesKeyPairExist(PluginCall call) {
         String prefixedKey = this.getKeyParam(call, "prefixedKey");
-        if (prefixedKey == null || prefixedKey.isEmpty()) {
-            call.reject("prefixedKey is null or empty");
+        if (prefixedKey == null) {
             return;
         }
-        tryStorageOp(
+        runStorageOp(
             call,
+            prefixedKey,
             () -> {
                 boolean isExisting = implementation.doesKeyPairExist(prefixedKey);
                 JSObject ret = new JSObject();
@@ -85,16 +251,449 @@ public class SecureSigningPlugin extends Plugin {
     @PluginMethod
     public void sign(PluginCall call) {
         String prefixedKey = this.getKeyParam(call, "prefixedKey");
+        if (prefixedKey == null) {
+            return;
+        }
         String data = this.getKeyParam(call, "data");
-        if (prefixedKey == null || prefixedKey.isEmpty() || data == null || data.isEmpty()) {
-            call.reject(String.format("prefixedKey '%s' or data '%s' is null or empty", prefixedKey, data));
+        if (data == null) {
+            return;
+        }
+        byte[] decodedData = decodeArgument(call, "data", data);
+        if (decodedData == null) {
+            return;
+        }
+        SignatureFormat format = this.getSignatureFormat(call);
+        if (format == null) {
+            return;
+        }
+        runStorageOp(
+            call,
+            prefixedKey,
+            () -> {
+                String encodedSignature = implementation.sign(prefixedKey, decodedData, format);
+                JSObject ret = new JSObject();
+                ret.put("signature", encodedSignature);
+                call.resolve(ret);
+            }
+        );
+    }
+
+    @PluginMethod
+    public void signDigest(PluginCall call) {
+        String prefixedKey = this.getKeyParam(call, "prefixedKey");
+        if (prefixedKey == null) {
+            return;
+        }
+        String digest = this.getKeyParam(call, "digest");
+        if (digest == null) {
             return;
         }
-        byte[] decodedData = Base64.getDecoder().decode(data.getBytes(StandardCharsets.UTF_8));
+        byte[] decodedDigest = decodeArgument(call, "digest", digest);
+        if (decodedDigest == null) {
+            return;
+        }
+        SignatureFormat format = this.getSignatureFormat(call);
+        if (format == null) {
+            return;
+        }
+        runStorageOp(
+            call,
+            prefixedKey,
+            () -> {
+                String encodedSignature = implementation.signDigest(prefixedKey, decodedDigest, format);
+                JSObject ret = new JSObject();
+                ret.put("signature", encodedSignature);
+                call.resolve(ret);
+            }
+        );
+    }
+
+    @PluginMethod
+    public void signBatch(PluginCall call) {
+        String prefixedKey = this.getKeyParam(call, "prefixedKey");
+        if (prefixedKey == null) {
+            return;
+        }
+        JSArray data = call.getArray("data");
+        if (data == null) {
+            call.reject("data is null");
+            return;
+        }
+        SignatureFormat format = this.getSignatureFormat(call);
+        if (format == null) {
+            return;
+        }
+        // items that are not valid base64 strings are reported as per-item errors
+        byte[][] decodedData = new byte[data.length()][];
+        for (int i = 0; i < data.length(); i++) {
+            Object item = data.opt(i);
+            if (!(item instanceof String) || ((String) item).isEmpty()) {
+                continue;
+            }
+            try {
+                decodedData[i] = decodePayload((String) item);
+            } catch (IllegalArgumentException e) {
+                // left null, reported as invalidData by signBatch
+            }
+        }
+        runStorageOp(
+            call,
+            prefixedKey,
+            () -> {
+                BatchSignResult[] results = implementation.signBatch(prefixedKey, decodedData, format);
+                JSArray encodedResults = new JSArray();
+                for (BatchSignResult result : results) {
+                    JSObject item = new JSObject();
+                    SecureSigningException error = result.getError();
+                    if (error == null) {
+                        item.put("signature", result.getSignature());
+                    } else {
+                        item.put("error", encodeError(error));
+                    }
+                    encodedResults.put(item);
+                }
+                JSObject ret = new JSObject();
+                ret.put("results", encodedResults);
+                call.resolve(ret);
+            }
+        );
+    }
+
+    @PluginMethod
+    public void signJws(PluginCall call) {
+        String prefixedKey = this.getKeyParam(call, "prefixedKey");
+        if (prefixedKey == null) {
+            return;
+        }
+        JSObject payload = call.getObject("payload");
+        if (payload == null) {
+            call.reject("payload is null");
+            return;
+        }
+        JSObject header = call.getObject("header");
+        String encodedPayload = payload.toString();
+        runStorageOp(
+            call,
+            prefixedKey,
+            () -> {
+                // the algorithm depends on the key, only known once it is resolved
+                String algorithm = implementation.getJwsAlgorithm(prefixedKey);
+                JSObject jwsHeader = header;
+                if (jwsHeader == null) {
+                    jwsHeader = new JSObject();
+                    jwsHeader.put("alg", algorithm);
+                    jwsHeader.put("typ", "JWT");
+                } else if (!jwsHeader.has("alg")) {
+                    jwsHeader.put("alg", algorithm);
+                } else if (!algorithm.equals(jwsHeader.optString("alg"))) {
+                    call.reject(String.format("Unsupported alg '%s', the key signs with %s", jwsHeader.optString("alg"), algorithm));
+                    return;
+                }
+                JSObject ret = new JSObject();
+                // serialized in the key order given by the caller
+                ret.put("token", implementation.signJws(prefixedKey, jwsHeader.toString(), encodedPayload));
+                call.resolve(ret);
+            }
+        );
+    }
+
+    @PluginMethod
+    public void createSessionKey(PluginCall call) {
+        String prefixedKey = this.getKeyParam(call, "prefixedKey");
+        if (prefixedKey == null) {
+            return;
+        }
+        Long ttl = getLongParam(call, "ttl");
+        if (ttl == null || ttl <= 0) {
+            call.reject(String.format("ttl '%s' must be a positive number", ttl));
+            return;
+        }
+        int maxUses = call.getInt("maxUses", 0);
+        PublicKeyFormat format = this.getPublicKeyFormat(call);
+        if (format == null) {
+            return;
+        }
+        runStorageOp(
+            call,
+            prefixedKey,
+            () -> {
+                SessionKeyDelegation sessionKey = implementation.createSessionKey(prefixedKey, ttl, maxUses);
+                JSObject ret = new JSObject();
+                ret.put("sessionId", sessionKey.getSessionId());
+                ret.put("publicKey", sessionKey.getPublicKey().get(format));
+                ret.put("delegation", sessionKey.getToken());
+                call.resolve(ret);
+            }
+        );
+    }
+
+    @PluginMethod
+    public void signWithSession(PluginCall call) {
+        String sessionId = this.getKeyParam(call, "sessionId");
+        if (sessionId == null) {
+            return;
+        }
+        String data = this.getKeyParam(call, "data");
+        if (data == null) {
+            return;
+        }
+        byte[] decodedData = decodeArgument(call, "data", data);
+        if (decodedData == null) {
+            return;
+        }
+        SignatureFormat format = this.getSignatureFormat(call);
+        if (format == null) {
+            return;
+        }
+        // software signing, run inline rather than queued behind keystore operations on the storage stripes
         tryStorageOp(
             call,
             () -> {
-                String encodedSignature = implementation.sign(prefixedKey, decodedData);
+                JSObject ret = new JSObject();
+                ret.put("signature", implementation.signWithSession(sessionId, decodedData, format));
+                call.resolve(ret);
+            },
+            SecureSigningMetrics.start()
+        );
+    }
+
+    @PluginMethod
+    public void signMerkleBatch(PluginCall call) {
+        String prefixedKey = this.getKeyParam(call, "prefixedKey");
+        if (prefixedKey == null) {
+            return;
+        }
+        JSArray data = call.getArray("data");
+        if (data == null || data.length() == 0) {
+            call.reject("data is null or empty");
+            return;
+        }
+        SignatureFormat format = this.getSignatureFormat(call);
+        if (format == null) {
+            return;
+        }
+        // every message is a leaf of the tree, so a malformed one fails the whole batch
+        byte[][] decodedData = new byte[data.length()][];
+        for (int i = 0; i < data.length(); i++) {
+            Object item = data.opt(i);
+            if (!(item instanceof String)) {
+                call.reject(String.format("data[%d] is not a string", i));
+                return;
+            }
+            decodedData[i] = decodeArgument(call, String.format("data[%d]", i), (String) item);
+            if (decodedData[i] == null) {
+                return;
+            }
+        }
+        runStorageOp(
+            call,
+            prefixedKey,
+            () -> {
+                MerkleBatchSignature batchSignature = implementation.signMerkleBatch(prefixedKey, decodedData, format);
+                JSArray proofs = new JSArray();
+                for (int i = 0; i < batchSignature.getTreeSize(); i++) {
+                    JSArray proof = new JSArray();
+                    for (byte[] sibling : batchSignature.getProof(i)) {
+                        proof.put(Base64.getEncoder().encodeToString(sibling));
+                    }
+                    proofs.put(proof);
+                }
+                JSObject ret = new JSObject();
+                ret.put("root", Base64.getEncoder().encodeToString(batchSignature.getRoot()));
+                ret.put("signature", batchSignature.getSignature());
+                ret.put("treeSize", batchSignature.getTreeSize());
+                ret.put("proofs", proofs);
+                call.resolve(ret);
+            }
+        );
+    }
+
+    @PluginMethod
+    public void verifyMerkleProof(PluginCall call) {
+        String publicKey = this.getKeyParam(call, "publicKey");
+        if (publicKey == null) {
+            return;
+        }
+        String data = this.getKeyParam(call, "data");
+        if (data == null) {
+            return;
+        }
+        String signature = this.getKeyParam(call, "signature");
+        if (signature == null) {
+            return;
+        }
+        Integer index = call.getInt("index");
+        Integer treeSize = call.getInt("treeSize");
+        JSArray proof = call.getArray("proof");
+        if (index == null || treeSize == null || proof == null) {
+            call.reject("index, treeSize and proof are required");
+            return;
+        }
+        SignatureFormat format = this.getSignatureFormat(call);
+        if (format == null) {
+            return;
+        }
+        byte[] decodedData = decodeArgument(call, "data", data);
+        byte[] decodedSignature = decodedData == null ? null : decodeArgument(call, "signature", signature);
+        if (decodedSignature == null) {
+            return;
+        }
+        List<byte[]> decodedProof = new ArrayList<>(proof.length());
+        for (int i = 0; i < proof.length(); i++) {
+            byte[] sibling = decodeArgument(call, String.format("proof[%d]", i), proof.optString(i, ""));
+            if (sibling == null) {
+                return;
+            }
+            decodedProof.add(sibling);
+        }
+        runVerifyOp(
+            call,
+            () -> {
+                JSObject ret = new JSObject();
+                ret.put(
+                    "valid",
+                    implementation.verifyMerkleProof(publicKey, decodedData, index, treeSize, decodedProof, decodedSignature, format)
+                );
+                call.resolve(ret);
+            }
+        );
+    }
+
+    private static JSObject encodeError(SecureSigningException error) {
+        JSObject encodedError = new JSObject();
+        encodedError.put("code", error.getCode());
+        encodedError.put("message", error.getMessage());
+        return encodedError;
+    }
+
+    @PluginMethod
+    public void verify(PluginCall call) {
+        String publicKey = this.getKeyParam(call, "publicKey");
+        if (publicKey == null) {
+            return;
+        }
+        String data = this.getKeyParam(call, "data");
+        if (data == null) {
+            return;
+        }
+        String signature = this.getKeyParam(call, "signature");
+        if (signature == null) {
+            return;
+        }
+        byte[] decodedData = decodeArgument(call, "data", data);
+        byte[] decodedSignature = decodedData == null ? null : decodeArgument(call, "signature", signature);
+        if (decodedSignature == null) {
+            return;
+        }
+        SignatureFormat format = this.getSignatureFormat(call);
+        if (format == null) {
+            return;
+        }
+        runVerifyOp(
+            call,
+            () -> {
+                JSObject ret = new JSObject();
+                ret.put("valid", implementation.verify(publicKey, decodedData, decodedSignature, format));
+                call.resolve(ret);
+            }
+        );
+    }
+
+    @PluginMethod
+    public void verifyBatch(PluginCall call) {
+        JSArray items = call.getArray("items");
+        if (items == null) {
+            call.reject("items is null");
+            return;
+        }
+        SignatureFormat format = this.getSignatureFormat(call);
+        if (format == null) {
+            return;
+        }
+        // malformed items are left null and reported as per-item errors
+        String[] publicKeys = new String[items.length()];
+        byte[][] decodedData = new byte[items.length()][];
+        byte[][] decodedSignatures = new byte[items.length()][];
+        for (int i = 0; i < items.length(); i++) {
+            JSONObject item = items.optJSONObject(i);
+            if (item == null) {
+                continue;
+            }
+            String publicKey = item.optString("publicKey", "");
+            String data = item.optString("data", "");
+            String signature = item.optString("signature", "");
+            if (publicKey.isEmpty() || data.isEmpty() || signature.isEmpty()) {
+                continue;
+            }
+            try {
+                decodedData[i] = decodePayload(data);
+                decodedSignatures[i] = Base64.getDecoder().decode(signature.getBytes(StandardCharsets.UTF_8));
+                publicKeys[i] = publicKey;
+            } catch (IllegalArgumentException e) {
+                // left null, reported as invalidData by verifyBatch
+            }
+        }
+        runVerifyOp(
+            call,
+            () -> {
+                BatchVerifyResult[] results = implementation.verifyBatch(publicKeys, decodedData, decodedSignatures, format);
+                JSArray encodedResults = new JSArray();
+                for (BatchVerifyResult result : results) {
+                    JSObject item = new JSObject();
+                    SecureSigningException error = result.getError();
+                    if (error == null) {
+                        item.put("valid", result.isValid());
+                    } else {
+                        item.put("error", encodeError(error));
+                    }
+                    encodedResults.put(item);
+                }
+                JSObject ret = new JSObject();
+                ret.put("results", encodedResults);
+                call.resolve(ret);
+            }
+        );
+    }
+
+    @PluginMethod
+    public void signFile(PluginCall call) {
+        String prefixedKey = this.getKeyParam(call, "prefixedKey");
+        if (prefixedKey == null) {
+            return;
+        }
+        String path = this.getKeyParam(call, "path");
+        if (path == null) {
+            return;
+        }
+        Long offset = getLongParam(call, "offset");
+        Long length = getLongParam(call, "length");
+        if ((offset != null && offset < 0) || (length != null && length < 0)) {
+            call.reject(String.format("offset '%s' and length '%s' must not be negative", offset, length));
+            return;
+        }
+        SignatureFormat format = this.getSignatureFormat(call);
+        if (format == null) {
+            return;
+        }
+        // accept both plain paths and file:// URIs, as returned by the Capacitor Filesystem plugin
+        File file;
+        try {
+            file = path.startsWith("file://") ? new File(URI.create(path)) : new File(path);
+        } catch (IllegalArgumentException e) {
+            call.reject(String.format("path '%s' is not a valid file path or URI", path));
+            return;
+        }
+        runStorageOp(
+            call,
+            prefixedKey,
+            () -> {
+                String encodedSignature = implementation.signFile(
+                    prefixedKey,
+                    file,
+                    offset == null ? 0 : offset,
+                    length == null ? -1 : length,
+                    format
+                );
                 JSObject ret = new JSObject();
                 ret.put("signature", encodedSignature);
                 call.resolve(ret);
@@ -102,10 +701,127 @@ public class SecureSigningPlugin extends Plugin {
         );
     }
 
-    private void tryStorageOp(PluginCall call, StorageOp op) {
+    @PluginMethod
+    public void beginSign(PluginCall call) {
+        String prefixedKey = this.getKeyParam(call, "prefixedKey");
+        if (prefixedKey == null) {
+            return;
+        }
+        runStorageOp(
+            call,
+            prefixedKey,
+            () -> {
+                String sessionId = implementation.beginSign(prefixedKey);
+                JSObject ret = new JSObject();
+                ret.put("sessionId", sessionId);
+                call.resolve(ret);
+            }
+        );
+    }
+
+    @PluginMethod
+    public void updateSign(PluginCall call) {
+        String sessionId = this.getKeyParam(call, "sessionId");
+        if (sessionId == null) {
+            return;
+        }
+        String data = this.getKeyParam(call, "data");
+        if (data == null) {
+            return;
+        }
+        byte[] decodedChunk = decodeArgument(call, "data", data);
+        if (decodedChunk == null) {
+            return;
+        }
+        runStorageOp(
+            call,
+            this.getSessionStripeKey(sessionId),
+            () -> {
+                implementation.updateSign(sessionId, decodedChunk);
+                call.resolve();
+            }
+        );
+    }
+
+    @PluginMethod
+    public void finishSign(PluginCall call) {
+        String sessionId = this.getKeyParam(call, "sessionId");
+        if (sessionId == null) {
+            return;
+        }
+        SignatureFormat format = this.getSignatureFormat(call);
+        if (format == null) {
+            return;
+        }
+        runStorageOp(
+            call,
+            this.getSessionStripeKey(sessionId),
+            () -> {
+                String encodedSignature = implementation.finishSign(sessionId, format);
+                JSObject ret = new JSObject();
+                ret.put("signature", encodedSignature);
+                call.resolve(ret);
+            }
+        );
+    }
+
+    @PluginMethod
+    public void cancelSign(PluginCall call) {
+        String sessionId = this.getKeyParam(call, "sessionId");
+        if (sessionId == null) {
+            return;
+        }
+        // only drops the session, nothing to queue behind the keystore
+        implementation.cancelSign(sessionId);
+        call.resolve();
+    }
+
+    /**
+     * Session operations run on the stripe of the session's alias, so they stay ordered
+     * with the other operations on that key.
+     */
+    private String getSessionStripeKey(String sessionId) {
+        String prefixedKey = implementation.getSignSessionKey(sessionId);
+        return prefixedKey != null ? prefixedKey : sessionId;
+    }
+
+    /**
+     * Runs the operation off the plugin thread, on the executor stripe owning this alias,
+     * so operations on the same alias stay ordered and others do not wait behind them.
+     */
+    private void runStorageOp(PluginCall call, String prefixedKey, StorageOp op) {
+        this.runOp(executor, call, prefixedKey, op);
+    }
+
+    /**
+     * Runs a verification off the storage stripes. Verifications need no ordering,
+     * so each call is spread by its own id.
+     */
+    private void runVerifyOp(PluginCall call, StorageOp op) {
+        this.runOp(verifyExecutor, call, String.valueOf(call.getCallbackId()), op);
+    }
+
+    private void runOp(StripedExecutor target, PluginCall call, String stripeKey, StorageOp op) {
+        long queuedAt = SecureSigningMetrics.start();
+        try {
+            target.execute(
+                stripeKey,
+                () -> {
+                    SecureSigningMetrics.record(SecureSigningMetrics.Phase.queueWait, queuedAt);
+                    tryStorageOp(call, op, queuedAt);
+                }
+            );
+        } catch (RejectedExecutionException e) {
+            SecureSigningMetrics.recordOperation(call.getMethodName(), queuedAt, SecureSigningException.ErrorKind.busy);
+            SecureSigningException.reject(call, SecureSigningException.ErrorKind.busy, e);
+        }
+    }
+
+    private void tryStorageOp(PluginCall call, StorageOp op, long queuedAt) {
         SecureSigningException exception;
         try {
             op.run();
+            SecureSigningMetrics.recordOperation(call.getMethodName(), queuedAt, null);
             return;
         } catch (SecureSigningException e) {
             exception = e;
@@ -120,24 +836,30 @@ public class SecureSigningPlugin extends Plugin {
             exception = new SecureSigningException(SecureSigningException.ErrorKind.unknownError, e);
         }
 
+        SecureSigningMetrics.recordOperation(call.getMethodName(), queuedAt, exception.getKind());
         exception.rejectCall(call);
     }
 
     @PluginMethod
     public void createKeyPairIfDoesNotExist(PluginCall call) {
         String prefixedKey = this.getKeyParam(call, "prefixedKey");
-        if (prefixedKey == null || prefixedKey.isEmpty()) {
-            call.reject("prefixedKey is null or empty");
+        if (prefixedKey == null) {
             return;
         }
-        tryStorageOp(
+        PublicKeyFormat format = this.getPublicKeyFormat(call);
+        if (format == null) {
+            return;
+        }
+        KeyGenOptions keyOptions = this.getKeyGenOptions(call);
+        if (keyOptions == null) {
+            return;
+        }
+        runStorageOp(
             call,
+            prefixedKey,
             () -> {
-                KeyPair kp = implementation.createKeyPairIfDoesNotExist(prefixedKey);
-                byte[] ecPublicKeyBytes = implementation.ecFromPubKey(kp.getPublic());
-
-                // Encode to Base64 and send
-                String encodedPublicKey = new String(Base64.getEncoder().encode(ecPublicKeyBytes), StandardCharsets.UTF_8);
+                implementation.createKeyPairIfDoesNotExist(prefixedKey, keyOptions);
+                String encodedPublicKey = implementation.getPublicKeyEncodings(prefixedKey).get(format);
                 JSObject ret = new JSObject();
                 ret.put("publicKey", encodedPublicKey);
                 call.resolve(ret);
@@ -148,12 +870,12 @@ public class SecureSigningPlugin extends Plugin {
     @PluginMethod
     public void deleteKeyPair(PluginCall call) {
         String prefixedKey = this.getKeyParam(call, "prefixedKey");
-        if (prefixedKey == null || prefixedKey.isEmpty()) {
-            call.reject("prefixedKey is null or empty");
+        if (prefixedKey == null) {
             return;
         }
-        tryStorageOp(
+        runStorageOp(
             call,
+            prefixedKey,
             () -> {
                 DeleteStatus deleteStatus = implementation.deleteKeyPair(prefixedKey);
                 JSObject ret = new JSObject();
@@ -166,22 +888,120 @@ public class SecureSigningPlugin extends Plugin {
     @PluginMethod
     public void getKeyPair(PluginCall call) {
         String prefixedKey = this.getKeyParam(call, "prefixedKey");
-        if (prefixedKey == null || prefixedKey.isEmpty()) {
-            call.reject("prefixedKey is null or empty");
+        if (prefixedKey == null) {
             return;
         }
-        tryStorageOp(
+        PublicKeyFormat format = this.getPublicKeyFormat(call);
+        if (format == null) {
+            return;
+        }
+        runStorageOp(
             call,
+            prefixedKey,
             () -> {
-                KeyPair kp = implementation.getKeyPair(prefixedKey);
-                byte[] ecPublicKeyBytes = implementation.ecFromPubKey(kp.getPublic());
-
-                // Encode to Base64 and send
-                String encodedPublicKey = new String(Base64.getEncoder().encode(ecPublicKeyBytes), StandardCharsets.UTF_8);
+                String encodedPublicKey = implementation.getPublicKeyEncodings(prefixedKey).get(format);
                 JSObject ret = new JSObject();
                 ret.put("publicKey", encodedPublicKey);
                 call.resolve(ret);
             }
         );
     }
+
+    @PluginMethod
+    public void listKeys(PluginCall call) {
+        String prefix = call.getString("prefix", "");
+        runStorageOp(
+            call,
+            prefix,
+            () -> {
+                JSArray keys = new JSArray();
+                for (String prefixedKey : implementation.listKeys(prefix)) {
+                    keys.put(prefixedKey);
+                }
+                JSObject ret = new JSObject();
+                ret.put("keys", keys);
+                call.resolve(ret);
+            }
+        );
+    }
+
+    @PluginMethod
+    public void getMetrics(PluginCall call) {
+        JSObject phases = new JSObject();
+        for (Map.Entry<SecureSigningMetrics.Phase, LatencyHistogram.Snapshot> entry : SecureSigningMetrics.snapshotPhases().entrySet()) {
+            phases.put(entry.getKey().toString(), encodeLatency(entry.getValue()));
+        }
+        JSObject operations = new JSObject();
+        for (Map.Entry<String, SecureSigningMetrics.OperationStats> entry : SecureSigningMetrics.snapshotOperations().entrySet()) {
+            SecureSigningMetrics.OperationStats stats = entry.getValue();
+            LatencyHistogram.Snapshot latency = stats.latency.snapshot();
+            JSObject errors = new JSObject();
+            long errorCount = 0;
+            for (SecureSigningException.ErrorKind kind : SecureSigningException.ErrorKind.values()) {
+                long count = stats.errors.get(kind.ordinal());
+                if (count > 0) {
+                    errors.put(kind.toString(), count);
+                    errorCount += count;
+                }
+            }
+            JSObject operation = new JSObject();
+            operation.put("count", latency.count);
+            operation.put("errorCount", errorCount);
+            operation.put("errors", errors);
+            operation.put("latency", encodeLatency(latency));
+            operations.put(entry.getKey(), operation);
+        }
+        JSObject ret = new JSObject();
+        ret.put("enabled", SecureSigningMetrics.isEnabled());
+        ret.put("since", SecureSigningMetrics.getSince());
+        ret.put("phases", phases);
+        ret.put("operations", operations);
+        call.resolve(ret);
+    }
+
+    /**
+     * Durations are reported in microseconds.
+     */
+    private static JSObject encodeLatency(LatencyHistogram.Snapshot snapshot) {
+        JSObject ret = new JSObject();
+        ret.put("count", snapshot.count);
+        ret.put("mean", snapshot.mean / 1000.0);
+        ret.put("p50", snapshot.p50 / 1000.0);
+        ret.put("p95", snapshot.p95 / 1000.0);
+        ret.put("p99", snapshot.p99 / 1000.0);
+        ret.put("max", snapshot.max / 1000.0);
+        return ret;
+    }
+
+    @PluginMethod
+    public void resetMetrics(PluginCall call) {
+        Boolean enabled = call.getBoolean("enabled");
+        if (enabled != null) {
+            SecureSigningMetrics.setEnabled(enabled);
+        }
+        SecureSigningMetrics.reset();
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getWarmUpStatus(PluginCall call) {
+        call.resolve(encodeWarmUpStatus(warmUp.getStatus()));
+    }
+
+    private static JSObject encodeWarmUpStatus(WarmUp.Status status) {
+        JSObject ret = new JSObject();
+        ret.put("state", status.state.toString());
+        if (status.step != null) {
+            ret.put("step", status.step);
+        }
+        ret.put("completed", status.completed);
+        ret.put("total", status.total);
+        ret.put("warmedKeys", status.warmedKeys);
+        ret.put("failedKeys", status.failedKeys);
+        ret.put("duration", status.durationMillis);
+        if (status.error != null) {
+            ret.put("error", encodeError(status.error));
+        }
+        return ret;
+    }
 }
@@ -0,0 +1,34 @@
+package com.zkorum.capacitor.securesigning;
+
+/**
+ * A session key and the delegation token certifying it, signed by the hardware key.
+ */
+public class SessionKeyDelegation {
+
+    private final String sessionId;
+    private final PublicKeyEncodings publicKey;
+    private final String token;
+
+    SessionKeyDelegation(String sessionId, PublicKeyEncodings publicKey, String token) {
+        this.sessionId = sessionId;
+        this.publicKey = publicKey;
+        this.token = token;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public PublicKeyEncodings getPublicKey() {
+        return publicKey;
+    }
+
+    /**
+     * JWS signed by the hardware key with its algorithm, whose payload binds the session key (sub, as a did:key)
+     * to the hardware key (iss) until exp, for at most maxUses signatures when limited.
+     * The session key itself is always P-256, and signs ES256 whatever the algorithm of the hardware key.
+     */
+    public String getToken() {
+        return token;
+    }
+}
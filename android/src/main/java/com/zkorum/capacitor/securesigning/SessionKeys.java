@@ -0,0 +1,170 @@
+package com.zkorum.capacitor.securesigning;
+
+import androidx.annotation.Nullable;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.security.auth.DestroyFailedException;
+
+/**
+ * Software P-256 keys held in memory only, each usable until it expires or runs out of uses.
+ * Signing takes no lock: sessions are looked up in a concurrent map, uses are claimed with
+ * compare-and-set, and each thread signs with its own Signature.
+ */
+class SessionKeys {
+
+    private static final String SIGNATURE_ALGORITHM = "SHA256withECDSA";
+
+    private static final ThreadLocal<Signature> SIGNERS = new ThreadLocal<>();
+
+    static class SessionKey {
+
+        final String prefixedKey;
+        final KeyPair keyPair;
+        private final long expiresAtNanos;
+        // null when the number of uses is unlimited
+        @Nullable
+        private final AtomicInteger remainingUses;
+
+        SessionKey(String prefixedKey, KeyPair keyPair, long ttlMillis, int maxUses) {
+            this.prefixedKey = prefixedKey;
+            this.keyPair = keyPair;
+            this.expiresAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+            this.remainingUses = maxUses > 0 ? new AtomicInteger(maxUses) : null;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+
+        /**
+         * Claims one use, returns false if the key has expired or has no use left.
+         */
+        boolean tryUse(long now) {
+            if (this.isExpired(now)) {
+                return false;
+            }
+            if (remainingUses == null) {
+                return true;
+            }
+            int remaining;
+            do {
+                remaining = remainingUses.get();
+                if (remaining <= 0) {
+                    return false;
+                }
+            } while (!remainingUses.compareAndSet(remaining, remaining - 1));
+            return true;
+        }
+
+        boolean isExhausted() {
+            return remainingUses != null && remainingUses.get() <= 0;
+        }
+    }
+
+    private final ConcurrentHashMap<String, SessionKey> sessions = new ConcurrentHashMap<>();
+    private final int maxSessions;
+
+    SessionKeys(int maxSessions) {
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * Registers a session key and returns its id, or throws busy if the cap is reached.
+     * Synchronized so that concurrent adds cannot both pass the size check, removals need no lock.
+     */
+    synchronized String add(SessionKey session) throws SecureSigningException {
+        this.evictExpired();
+        if (sessions.size() >= maxSessions) {
+            throw new SecureSigningException(
+                SecureSigningException.ErrorKind.busy,
+                new IllegalStateException(String.format("Too many session keys (max %d)", maxSessions))
+            );
+        }
+        String sessionId = UUID.randomUUID().toString();
+        sessions.put(sessionId, session);
+        return sessionId;
+    }
+
+    /**
+     * Signs data with the session key, using one of its uses, and returns the DER signature.
+     * Throws invalidSession if the session is unknown, expired or used up.
+     */
+    byte[] sign(String sessionId, byte[] data) throws SecureSigningException {
+        SessionKey session = sessions.get(sessionId);
+        if (session == null || !session.tryUse(System.nanoTime())) {
+            this.remove(sessionId);
+            throw new SecureSigningException(SecureSigningException.ErrorKind.invalidSession);
+        }
+        try {
+            Signature s = getSigner();
+            s.initSign(session.keyPair.getPrivate());
+            s.update(data);
+            return s.sign();
+        } catch (GeneralSecurityException e) {
+            e.printStackTrace();
+            throw new SecureSigningException(SecureSigningException.ErrorKind.invalidData, e);
+        } finally {
+            // wiped once its last use is done
+            if (session.isExhausted()) {
+                this.remove(sessionId);
+            }
+        }
+    }
+
+    private static Signature getSigner() throws NoSuchAlgorithmException {
+        Signature s = SIGNERS.get();
+        if (s == null) {
+            s = Signature.getInstance(SIGNATURE_ALGORITHM);
+            SIGNERS.set(s);
+        }
+        return s;
+    }
+
+    void remove(String sessionId) {
+        SessionKey session = sessions.remove(sessionId);
+        if (session != null) {
+            wipe(session);
+        }
+    }
+
+    /**
+     * Drops the sessions certified by the given hardware key.
+     */
+    void removeAll(String prefixedKey) {
+        for (String sessionId : sessions.keySet()) {
+            SessionKey session = sessions.get(sessionId);
+            if (session != null && session.prefixedKey.equals(prefixedKey)) {
+                this.remove(sessionId);
+            }
+        }
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        Iterator<SessionKey> it = sessions.values().iterator();
+        while (it.hasNext()) {
+            SessionKey session = it.next();
+            if (session.isExpired(now)) {
+                it.remove();
+                wipe(session);
+            }
+        }
+    }
+
+    private static void wipe(SessionKey session) {
+        PrivateKey privateKey = session.keyPair.getPrivate();
+        try {
+            privateKey.destroy();
+        } catch (DestroyFailedException e) {
+            // most providers cannot destroy their keys, dropping the last reference is then all we can do
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.zkorum.capacitor.securesigning;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import androidx.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Alias mapping persisted in the app's private shared preferences, next to the AndroidKeyStore keys it points to.
+ */
+public class SharedPreferencesAliasStore implements AliasStore {
+
+    private static final String PREFERENCES_NAME = "SecureSigningAliases";
+
+    private final SharedPreferences preferences;
+
+    public SharedPreferencesAliasStore(Context context) {
+        this.preferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    @Nullable
+    @Override
+    public String get(String alias) {
+        return preferences.getString(alias, null);
+    }
+
+    // written synchronously: a mapping lost on a crash would orphan the key it points to
+    @Override
+    public void put(String alias, String backendAlias) {
+        preferences.edit().putString(alias, backendAlias).commit();
+    }
+
+    @Override
+    public void remove(String alias) {
+        preferences.edit().remove(alias).commit();
+    }
+
+    @Override
+    public Map<String, String> getAll() {
+        Map<String, String> aliases = new HashMap<>();
+        for (Map.Entry<String, ?> entry : preferences.getAll().entrySet()) {
+            if (entry.getValue() instanceof String) {
+                aliases.put(entry.getKey(), (String) entry.getValue());
+            }
+        }
+        return aliases;
+    }
+}
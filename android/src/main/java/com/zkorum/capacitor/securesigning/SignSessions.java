@@ -0,0 +1,125 @@
+package com.zkorum.capacitor.securesigning;
+
+import androidx.annotation.Nullable;
+import java.security.Signature;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Open streaming signatures, each holding an initialized Signature that payload chunks are fed to.
+ * The number of open sessions is capped, and sessions left idle longer than the timeout are dropped.
+ * A slot is reserved before the Signature is initialized, so the cap also bounds the keystore
+ * operations being opened: callers reserve, then open or release.
+ */
+class SignSessions {
+
+    static class Session {
+
+        final String prefixedKey;
+        final Signature signer;
+        final SigningAlgorithm algorithm;
+        private volatile long lastUsedNanos;
+
+        Session(String prefixedKey, Signature signer, SigningAlgorithm algorithm) {
+            this.prefixedKey = prefixedKey;
+            this.signer = signer;
+            this.algorithm = algorithm;
+            this.lastUsedNanos = System.nanoTime();
+        }
+
+        void touch() {
+            lastUsedNanos = System.nanoTime();
+        }
+    }
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    // Open sessions plus reserved slots, every removal from sessions releases its slot
+    private final AtomicInteger slots = new AtomicInteger();
+    private final int maxSessions;
+    private final long timeoutNanos;
+
+    SignSessions(int maxSessions, long timeoutMillis) {
+        this.maxSessions = maxSessions;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Reserves a slot for a session, or throws busy if all are taken.
+     */
+    void reserve() throws SecureSigningException {
+        this.evictExpired();
+        if (slots.incrementAndGet() > maxSessions) {
+            slots.decrementAndGet();
+            throw new SecureSigningException(
+                SecureSigningException.ErrorKind.busy,
+                new IllegalStateException(String.format("Too many open signing sessions (max %d)", maxSessions))
+            );
+        }
+    }
+
+    /**
+     * Gives back a reserved slot whose session could not be opened.
+     */
+    void release() {
+        slots.decrementAndGet();
+    }
+
+    /**
+     * Opens a session in a slot reserved with reserve() and returns its id.
+     */
+    String open(String prefixedKey, Signature signer, SigningAlgorithm algorithm) {
+        String sessionId = UUID.randomUUID().toString();
+        sessions.put(sessionId, new Session(prefixedKey, signer, algorithm));
+        return sessionId;
+    }
+
+    /**
+     * Returns the open session with that id, or throws invalidSession if it is unknown or has expired.
+     */
+    Session get(String sessionId) throws SecureSigningException {
+        Session session = sessions.get(sessionId);
+        if (session == null || this.isExpired(session, System.nanoTime())) {
+            if (session != null) {
+                this.remove(sessionId, session);
+            }
+            throw new SecureSigningException(SecureSigningException.ErrorKind.invalidSession);
+        }
+        session.touch();
+        return session;
+    }
+
+    @Nullable
+    Session peek(String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    void close(String sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session != null) {
+            this.remove(sessionId, session);
+        }
+    }
+
+    private void remove(String sessionId, Session session) {
+        // only the caller that actually removes the session releases its slot
+        if (sessions.remove(sessionId, session)) {
+            slots.decrementAndGet();
+        }
+    }
+
+    private boolean isExpired(Session session, long now) {
+        return now - session.lastUsedNanos > timeoutNanos;
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            if (this.isExpired(entry.getValue(), now)) {
+                this.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.zkorum.capacitor.securesigning;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Encoding of the signatures returned by the signing methods.
+ */
+public enum SignatureFormat {
+    /**
+     * Fixed-size r || s concatenation (IEEE P1363), as expected by WebCrypto.
+     */
+    P1363,
+    /**
+     * DER/ASN.1 encoding, as produced by the keystore, returned without conversion.
+     */
+    DER;
+
+    /**
+     * Parses the format option of a plugin call, defaulting to P1363 when absent.
+     */
+    public static SignatureFormat fromOption(@Nullable String format) {
+        if (format == null || format.equals("p1363")) {
+            return P1363;
+        }
+        if (format.equals("der")) {
+            return DER;
+        }
+        throw new IllegalArgumentException(String.format("Unsupported signature format '%s'", format));
+    }
+}
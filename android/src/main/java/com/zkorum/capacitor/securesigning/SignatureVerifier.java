@@ -0,0 +1,191 @@
+package com.zkorum.capacitor.securesigning;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.spec.ECFieldFp;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.EllipticCurve;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.stream.IntStream;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+
+/**
+ * Verifies ES256, ES384 and Ed25519 signatures against public keys given as base64 strings,
+ * in the encodings returned by the plugin (uncompressed or compressed point, raw Ed25519 key)
+ * or as X.509 SubjectPublicKeyInfo. The algorithm follows from the key.
+ * Parsed keys are cached by their encoded form.
+ */
+class SignatureVerifier {
+
+    private static final int PUBLIC_KEY_CACHE_SIZE = 64;
+    // smaller batches are not worth the hand-off to other threads
+    private static final int PARALLEL_BATCH_THRESHOLD = 8;
+
+    private static final X9ECParameters P256 = CustomNamedCurves.getByName("secp256r1");
+    private static final ECParameterSpec P256_SPEC = toParameterSpec(P256);
+    private static final X9ECParameters P384 = CustomNamedCurves.getByName("secp384r1");
+    private static final ECParameterSpec P384_SPEC = toParameterSpec(P384);
+    // SubjectPublicKeyInfo header of an Ed25519 key (RFC 8410), followed by the 32 bytes raw key
+    private static final byte[] ED25519_SPKI_PREFIX = { 0x30, 0x2a, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x03, 0x21, 0x00 };
+
+    // one Signature per algorithm and thread, indexed by ordinal
+    private static final ThreadLocal<Signature[]> VERIFIERS = ThreadLocal.withInitial(
+        () -> new Signature[SigningAlgorithm.values().length]
+    );
+
+    private final BoundedLruCache<String, PublicKey> publicKeyCache = new BoundedLruCache<>(PUBLIC_KEY_CACHE_SIZE);
+
+    /**
+     * Returns whether signature is a valid signature of data by publicKey. Malformed signatures are not valid.
+     */
+    boolean verify(String publicKey, byte[] data, byte[] signature, SignatureFormat format) throws SecureSigningException {
+        PublicKey key = this.getPublicKey(publicKey);
+        SigningAlgorithm algorithm = SigningAlgorithm.of(key);
+        P1363Converter converter = algorithm.getConverter();
+        byte[] derSignature;
+        try {
+            derSignature = format == SignatureFormat.P1363 && converter != null ? converter.toDer(signature) : signature;
+        } catch (SignatureException e) {
+            return false;
+        }
+        Signature s = getVerifier(algorithm, key);
+        try {
+            s.initVerify(key);
+            s.update(data);
+            return s.verify(derSignature);
+        } catch (InvalidKeyException e) {
+            throw new SecureSigningException(SecureSigningException.ErrorKind.invalidData, e);
+        } catch (SignatureException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Verifies each item, in parallel for large batches. An item with a null field, or whose
+     * public key cannot be parsed, produces an error result at its index.
+     */
+    BatchVerifyResult[] verifyBatch(String[] publicKeys, byte[][] data, byte[][] signatures, SignatureFormat format) {
+        BatchVerifyResult[] results = new BatchVerifyResult[publicKeys.length];
+        IntStream indexes = IntStream.range(0, publicKeys.length);
+        if (publicKeys.length >= PARALLEL_BATCH_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> results[i] = this.verifyItem(publicKeys[i], data[i], signatures[i], format));
+        return results;
+    }
+
+    private BatchVerifyResult verifyItem(String publicKey, byte[] data, byte[] signature, SignatureFormat format) {
+        if (publicKey == null || data == null || signature == null) {
+            return BatchVerifyResult.failure(new SecureSigningException(SecureSigningException.ErrorKind.invalidData));
+        }
+        try {
+            return BatchVerifyResult.verified(this.verify(publicKey, data, signature, format));
+        } catch (SecureSigningException e) {
+            return BatchVerifyResult.failure(e);
+        }
+    }
+
+    private static Signature getVerifier(SigningAlgorithm algorithm, PublicKey key) throws SecureSigningException {
+        Signature[] verifiers = VERIFIERS.get();
+        Signature s = verifiers[algorithm.ordinal()];
+        if (s == null) {
+            try {
+                s = SigningAlgorithm.newSignature(algorithm.getSignatureAlgorithm(), key);
+            } catch (NoSuchAlgorithmException e) {
+                throw new SecureSigningException(SecureSigningException.ErrorKind.osError, e);
+            }
+            verifiers[algorithm.ordinal()] = s;
+        }
+        return s;
+    }
+
+    private PublicKey getPublicKey(String encodedKey) throws SecureSigningException {
+        PublicKey cached = publicKeyCache.get(encodedKey);
+        if (cached != null) {
+            return cached;
+        }
+        PublicKey publicKey;
+        try {
+            publicKey = parsePublicKey(decodeBase64(encodedKey));
+            // rejects keys parsed fine but of an unsupported curve, e.g. P-521
+            SigningAlgorithm.of(publicKey);
+        } catch (IllegalArgumentException | GeneralSecurityException e) {
+            throw new SecureSigningException(SecureSigningException.ErrorKind.invalidData, e);
+        }
+        publicKeyCache.put(encodedKey, publicKey);
+        return publicKey;
+    }
+
+    private static ECParameterSpec toParameterSpec(X9ECParameters parameters) {
+        org.bouncycastle.math.ec.ECCurve curve = parameters.getCurve();
+        EllipticCurve ellipticCurve = new EllipticCurve(
+            new ECFieldFp(curve.getField().getCharacteristic()),
+            curve.getA().toBigInteger(),
+            curve.getB().toBigInteger()
+        );
+        org.bouncycastle.math.ec.ECPoint g = parameters.getG();
+        ECPoint generator = new ECPoint(g.getAffineXCoord().toBigInteger(), g.getAffineYCoord().toBigInteger());
+        return new ECParameterSpec(ellipticCurve, generator, parameters.getN(), parameters.getH().intValue());
+    }
+
+    private static byte[] decodeBase64(String encoded) {
+        boolean urlSafe = encoded.indexOf('-') >= 0 || encoded.indexOf('_') >= 0;
+        return (urlSafe ? Base64.getUrlDecoder() : Base64.getDecoder()).decode(encoded);
+    }
+
+    private static PublicKey parsePublicKey(byte[] encoded) throws GeneralSecurityException {
+        switch (encoded.length) {
+            case 32:
+                return parseEd25519(concat(ED25519_SPKI_PREFIX, encoded));
+            case 33:
+            case 65:
+                return parsePoint(encoded, P256, P256_SPEC);
+            case 49:
+            case 97:
+                return parsePoint(encoded, P384, P384_SPEC);
+            default:
+                // the platform may not parse Ed25519 keys
+                if (isEd25519SubjectPublicKeyInfo(encoded)) {
+                    return parseEd25519(encoded);
+                }
+                return KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(encoded));
+        }
+    }
+
+    private static PublicKey parsePoint(byte[] encoded, X9ECParameters curve, ECParameterSpec spec) throws GeneralSecurityException {
+        // checks the point is on the curve, and recovers y for compressed points
+        org.bouncycastle.math.ec.ECPoint point = curve.getCurve().decodePoint(encoded).normalize();
+        BigInteger x = point.getAffineXCoord().toBigInteger();
+        BigInteger y = point.getAffineYCoord().toBigInteger();
+        return KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(new ECPoint(x, y), spec));
+    }
+
+    private static PublicKey parseEd25519(byte[] subjectPublicKeyInfo) throws GeneralSecurityException {
+        return KeyFactory.getInstance("Ed25519", SoftwareKeys.PROVIDER).generatePublic(new X509EncodedKeySpec(subjectPublicKeyInfo));
+    }
+
+    private static boolean isEd25519SubjectPublicKeyInfo(byte[] encoded) {
+        return (
+            encoded.length == ED25519_SPKI_PREFIX.length + 32 &&
+            Arrays.equals(Arrays.copyOf(encoded, ED25519_SPKI_PREFIX.length), ED25519_SPKI_PREFIX)
+        );
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] out = new byte[a.length + b.length];
+        System.arraycopy(a, 0, out, 0, a.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+}
@@ -0,0 +1,144 @@
+package com.zkorum.capacitor.securesigning;
+
+import androidx.annotation.Nullable;
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+
+/**
+ * Signature algorithms a key pair can be generated for. The algorithm of an existing key
+ * is recovered from its public key, so it does not need to be stored alongside.
+ */
+public enum SigningAlgorithm {
+    /**
+     * ECDSA on P-256 with SHA-256.
+     */
+    ES256("ES256", "secp256r1", "SHA256withECDSA", KeyGenOptions.DIGEST_SHA256, 32, P1363Converter.P256),
+    /**
+     * ECDSA on P-384 with SHA-384.
+     */
+    ES384("ES384", "secp384r1", "SHA384withECDSA", KeyGenOptions.DIGEST_SHA384, 48, P1363Converter.P384),
+    /**
+     * EdDSA on Curve25519, signatures are always the raw 64 bytes.
+     */
+    ED25519("Ed25519", "ed25519", "Ed25519", KeyGenOptions.DIGEST_NONE, 0, null);
+
+    // signs the input as-is, used for digests computed by the caller
+    private static final String PREHASHED_ECDSA = "NONEwithECDSA";
+
+    private final String option;
+    private final String curve;
+    private final String signatureAlgorithm;
+    private final String digest;
+    private final int digestLength;
+
+    @Nullable
+    private final P1363Converter converter;
+
+    SigningAlgorithm(
+        String option,
+        String curve,
+        String signatureAlgorithm,
+        String digest,
+        int digestLength,
+        @Nullable P1363Converter converter
+    ) {
+        this.option = option;
+        this.curve = curve;
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.digest = digest;
+        this.digestLength = digestLength;
+        this.converter = converter;
+    }
+
+    /**
+     * Parses the algorithm option of a plugin call, defaulting to ES256 when absent.
+     */
+    public static SigningAlgorithm fromOption(@Nullable String option) {
+        if (option == null) {
+            return ES256;
+        }
+        for (SigningAlgorithm algorithm : values()) {
+            if (algorithm.option.equals(option)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unsupported algorithm '%s'", option));
+    }
+
+    public static SigningAlgorithm of(PublicKey publicKey) {
+        if (publicKey instanceof ECPublicKey) {
+            int fieldSize = ((ECPublicKey) publicKey).getParams().getCurve().getField().getFieldSize();
+            if (fieldSize == 256) {
+                return ES256;
+            }
+            if (fieldSize == 384) {
+                return ES384;
+            }
+        } else if ("Ed25519".equals(publicKey.getAlgorithm()) || "EdDSA".equals(publicKey.getAlgorithm())) {
+            return ED25519;
+        }
+        throw new IllegalArgumentException(String.format("Unsupported %s public key", publicKey.getAlgorithm()));
+    }
+
+    public String getOption() {
+        return option;
+    }
+
+    /**
+     * Curve name, as given to ECGenParameterSpec.
+     */
+    String getCurve() {
+        return curve;
+    }
+
+    /**
+     * Digest the keystore must authorize for this algorithm.
+     */
+    String getDigest() {
+        return digest;
+    }
+
+    /**
+     * Length of the digests signDigest accepts, 0 if the algorithm cannot sign prehashed digests.
+     */
+    int getDigestLength() {
+        return digestLength;
+    }
+
+    String getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    String getPrehashedSignatureAlgorithm() {
+        if (this == ED25519) {
+            throw new IllegalStateException("Ed25519 cannot sign prehashed digests");
+        }
+        return PREHASHED_ECDSA;
+    }
+
+    String getJwsAlgorithm() {
+        return this == ED25519 ? "EdDSA" : option;
+    }
+
+    /**
+     * Converter of the DER signatures of the platform to P1363, null if signatures are not DER-encoded.
+     */
+    @Nullable
+    P1363Converter getConverter() {
+        return converter;
+    }
+
+    /**
+     * Returns a Signature of the given algorithm for the key, from the provider able to use it:
+     * software Ed25519 keys come from the bundled BouncyCastle, the platform's does not support them.
+     */
+    static Signature newSignature(String signatureAlgorithm, Key key) throws NoSuchAlgorithmException {
+        if (SoftwareKeys.isSoftwareKey(key)) {
+            return Signature.getInstance(signatureAlgorithm, SoftwareKeys.PROVIDER);
+        }
+        return Signature.getInstance(signatureAlgorithm);
+    }
+}
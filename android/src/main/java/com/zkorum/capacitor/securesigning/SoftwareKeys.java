@@ -0,0 +1,41 @@
+package com.zkorum.capacitor.securesigning;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Provider;
+import java.security.spec.ECGenParameterSpec;
+import org.bouncycastle.jcajce.interfaces.EdDSAKey;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+/**
+ * Key pairs generated and held in software, for the in-memory backend and session keys.
+ */
+final class SoftwareKeys {
+
+    // not registered: Android already has a (stripped down) provider named "BC"
+    static final Provider PROVIDER = new BouncyCastleProvider();
+
+    private SoftwareKeys() {}
+
+    static KeyPair generateKeyPair(SigningAlgorithm algorithm) throws SecureSigningException {
+        try {
+            KeyPairGenerator kpg;
+            if (algorithm == SigningAlgorithm.ED25519) {
+                kpg = KeyPairGenerator.getInstance("Ed25519", PROVIDER);
+            } else {
+                kpg = KeyPairGenerator.getInstance("EC");
+                kpg.initialize(new ECGenParameterSpec(algorithm.getCurve()));
+            }
+            return kpg.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            e.printStackTrace();
+            throw new SecureSigningException(SecureSigningException.ErrorKind.keyGenerationError, e);
+        }
+    }
+
+    static boolean isSoftwareKey(Key key) {
+        return key instanceof EdDSAKey;
+    }
+}
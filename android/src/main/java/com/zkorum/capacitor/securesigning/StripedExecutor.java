@@ -0,0 +1,58 @@
+package com.zkorum.capacitor.securesigning;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on a fixed set of single-threaded stripes, chosen by key.
+ * Tasks sharing a key run one at a time in submission order, while tasks for keys
+ * on different stripes run in parallel. Each stripe has a bounded queue: once full,
+ * new tasks are rejected with a RejectedExecutionException instead of piling up.
+ */
+class StripedExecutor {
+
+    private final ThreadPoolExecutor[] stripes;
+
+    StripedExecutor(String name, int stripeCount, int queueCapacity) {
+        this.stripes = new ThreadPoolExecutor[stripeCount];
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] =
+                new ThreadPoolExecutor(
+                    1,
+                    1,
+                    0L,
+                    TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    threadFactory,
+                    new ThreadPoolExecutor.AbortPolicy()
+                );
+        }
+    }
+
+    void execute(String key, Runnable task) throws RejectedExecutionException {
+        stripes[stripeIndex(key)].execute(task);
+    }
+
+    private int stripeIndex(String key) {
+        int h = key.hashCode();
+        // spread the high bits, as aliases often share a long common prefix
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % stripes.length;
+    }
+
+    void shutdown() {
+        for (ThreadPoolExecutor stripe : stripes) {
+            stripe.shutdown();
+        }
+    }
+}
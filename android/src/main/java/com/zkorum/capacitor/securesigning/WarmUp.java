@@ -0,0 +1,161 @@
+package com.zkorum.capacitor.securesigning;
+
+import androidx.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Initializes, on a background thread, what the first signature after start would otherwise pay for:
+ * providers and Signature classes, BouncyCastle, the keystore and the entries of the given aliases.
+ * Progress is reported to the listener after each step.
+ *
+ * Steps are "providers", "keystore", then one per alias. A missing or unusable key does not fail
+ * the warm-up, it is only not warmed. A finished state (done or failed) is always reported.
+ */
+class WarmUp {
+
+    enum State {
+        idle,
+        running,
+        done,
+        failed
+    }
+
+    static final class Status {
+
+        final State state;
+
+        @Nullable
+        final String step;
+
+        final int completed;
+        final int total;
+        // keys loaded ahead of time, among the requested aliases
+        final int warmedKeys;
+        // requested aliases whose key could not be loaded, missing ones excluded
+        final int failedKeys;
+        final long durationMillis;
+
+        @Nullable
+        final SecureSigningException error;
+
+        Status(
+            State state,
+            @Nullable String step,
+            int completed,
+            int total,
+            int warmedKeys,
+            int failedKeys,
+            long durationMillis,
+            @Nullable SecureSigningException error
+        ) {
+            this.state = state;
+            this.step = step;
+            this.completed = completed;
+            this.total = total;
+            this.warmedKeys = warmedKeys;
+            this.failedKeys = failedKeys;
+            this.durationMillis = durationMillis;
+            this.error = error;
+        }
+
+        boolean isFinished() {
+            return state == State.done || state == State.failed;
+        }
+    }
+
+    interface Listener {
+        void onProgress(Status status);
+    }
+
+    private final SecureSigning signing;
+    private final List<String> prefixedKeys;
+    private final Listener listener;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SecureSigning-warmUp");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Status status;
+
+    WarmUp(SecureSigning signing, List<String> prefixedKeys, Listener listener) {
+        this.signing = signing;
+        this.prefixedKeys = prefixedKeys;
+        this.listener = listener;
+        this.status = new Status(State.idle, null, 0, 2 + prefixedKeys.size(), 0, 0, 0, null);
+    }
+
+    Status getStatus() {
+        return status;
+    }
+
+    void start() {
+        this.update(new Status(State.running, null, 0, status.total, 0, 0, 0, null));
+        worker.execute(this::run);
+        // the worker exits once done, nothing else is ever submitted
+        worker.shutdown();
+    }
+
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * Waits for the warm-up to finish, returns false on timeout.
+     */
+    boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return worker.awaitTermination(timeout, unit);
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        int total = status.total;
+        int completed = 0;
+        int warmedKeys = 0;
+        int failedKeys = 0;
+        State state = State.failed;
+        SecureSigningException error = null;
+        try {
+            signing.warmUpProviders();
+            this.update(new Status(State.running, "providers", ++completed, total, 0, 0, elapsedMillis(start), null));
+            signing.warmUpKeyStore();
+            this.update(new Status(State.running, "keystore", ++completed, total, 0, 0, elapsedMillis(start), null));
+            for (String prefixedKey : prefixedKeys) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                try {
+                    if (signing.warmUpKey(prefixedKey)) {
+                        warmedKeys++;
+                    }
+                } catch (SecureSigningException | RuntimeException e) {
+                    // e.g. a key of an unsupported algorithm, not created by the plugin
+                    // the call using it reports the error
+                    e.printStackTrace();
+                    failedKeys++;
+                }
+                this.update(new Status(State.running, prefixedKey, ++completed, total, warmedKeys, failedKeys, elapsedMillis(start), null));
+            }
+            state = State.done;
+        } catch (SecureSigningException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            error = new SecureSigningException(SecureSigningException.ErrorKind.osError, e);
+        } finally {
+            this.update(new Status(state, null, completed, total, warmedKeys, failedKeys, elapsedMillis(start), error));
+        }
+    }
+
+    private void update(Status status) {
+        this.status = status;
+        listener.onProgress(status);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,86 @@
+package com.zkorum.capacitor.securesigning;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    private static final int BUCKETS = LatencyHistogram.indexOf(Long.MAX_VALUE) + 1;
+
+    @Test
+    public void buckets_coverEveryValueWithoutGaps() {
+        // below 8 every value has its own bucket
+        for (int value = 0; value < 8; value++) {
+            assertEquals(value, LatencyHistogram.indexOf(value));
+            assertEquals(value, LatencyHistogram.lowerBound(value));
+        }
+        assertEquals(8, LatencyHistogram.indexOf(8));
+        assertEquals(15, LatencyHistogram.indexOf(15));
+        assertEquals(16, LatencyHistogram.indexOf(16));
+        assertEquals(16, LatencyHistogram.indexOf(17));
+        assertEquals(17, LatencyHistogram.indexOf(18));
+
+        for (int index = 0; index < BUCKETS; index++) {
+            long lower = LatencyHistogram.lowerBound(index);
+            assertEquals(index, LatencyHistogram.indexOf(lower));
+            if (index + 1 < BUCKETS) {
+                long next = LatencyHistogram.lowerBound(index + 1);
+                assertTrue(next > lower);
+                assertEquals(index, LatencyHistogram.indexOf(next - 1));
+                // each bucket is at most an eighth of its lower bound wide
+                assertTrue(lower < 8 || (next - lower) * 8 <= lower);
+            }
+        }
+    }
+
+    @Test
+    public void emptyHistogram_reportsZeros() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.count);
+        assertEquals(0, snapshot.mean);
+        assertEquals(0, snapshot.p50);
+        assertEquals(0, snapshot.p99);
+        assertEquals(0, snapshot.max);
+    }
+
+    @Test
+    public void percentiles_areWithinABucketOfTheRecordedValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.count);
+        assertEquals(500_500, snapshot.mean);
+        assertEquals(1_000_000, snapshot.max);
+        assertWithin(500_000, snapshot.p50);
+        assertWithin(950_000, snapshot.p95);
+        assertWithin(990_000, snapshot.p99);
+        assertTrue(snapshot.p50 <= snapshot.p95 && snapshot.p95 <= snapshot.p99 && snapshot.p99 <= snapshot.max);
+    }
+
+    @Test
+    public void percentiles_neverExceedTheMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 961 falls in [960, 1024), whose middle is 992
+        histogram.record(961);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(961, snapshot.p50);
+        assertEquals(961, snapshot.p99);
+
+        histogram.record(-5);
+        snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.count);
+        assertEquals(0, snapshot.p50);
+        assertEquals(961, snapshot.max);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(
+            String.format("%d is not within 12.5%% of %d", actual, expected),
+            Math.abs(actual - expected) * 8 <= expected
+        );
+    }
+}
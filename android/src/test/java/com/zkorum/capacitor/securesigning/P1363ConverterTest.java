@@ -0,0 +1,135 @@
+package com.zkorum.capacitor.securesigning;
+
+import static org.junit.Assert.*;
+
+import java.security.SignatureException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class P1363ConverterTest {
+
+    private static byte[] bytes(int... values) {
+        byte[] out = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            out[i] = (byte) values[i];
+        }
+        return out;
+    }
+
+    private static byte[] component(int first, int fill) {
+        byte[] out = new byte[32];
+        Arrays.fill(out, (byte) fill);
+        out[0] = (byte) first;
+        return out;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] out = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+
+    private static void assertMalformed(byte[] der) {
+        try {
+            P1363Converter.P256.toP1363(der);
+            fail("malformed DER must be rejected: " + Arrays.toString(der));
+        } catch (SignatureException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shortComponents_arePaddedAndStripped() throws Exception {
+        // r = 1, s = 0x7f: single byte integers
+        byte[] der = bytes(0x30, 0x06, 0x02, 0x01, 0x01, 0x02, 0x01, 0x7f);
+        byte[] p1363 = P1363Converter.P256.toP1363(der);
+        byte[] expected = new byte[64];
+        expected[31] = 0x01;
+        expected[63] = 0x7f;
+        assertArrayEquals(expected, p1363);
+        assertArrayEquals(der, P1363Converter.P256.toDer(p1363));
+
+        // leading zero components are dropped from the DER encoding
+        byte[] r = component(0x00, 0x11);
+        byte[] s = component(0x01, 0x22);
+        byte[] encoded = P1363Converter.P256.toDer(concat(r, s));
+        assertEquals(31, encoded[3]);
+        assertEquals(32, encoded[4 + 31 + 1]);
+        assertArrayEquals(concat(r, s), P1363Converter.P256.toP1363(encoded));
+    }
+
+    @Test
+    public void highBitComponents_getAZeroSignByte() throws Exception {
+        byte[] r = component(0x80, 0x01);
+        byte[] s = component(0xff, 0x02);
+        byte[] der = P1363Converter.P256.toDer(concat(r, s));
+
+        assertEquals(2 + 2 * (2 + 33), der.length);
+        assertEquals(33, der[3]);
+        assertEquals(0, der[4]);
+        assertEquals((byte) 0x80, der[5]);
+        assertEquals(33, der[2 + 35 + 1]);
+        assertEquals(0, der[2 + 35 + 2]);
+        assertArrayEquals(concat(r, s), P1363Converter.P256.toP1363(der));
+    }
+
+    @Test
+    public void randomSignatures_roundTrip() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            byte[] p1363 = new byte[64];
+            random.nextBytes(p1363);
+            // exercise leading zeros too
+            if (i % 4 == 0) {
+                Arrays.fill(p1363, 0, i % 32, (byte) 0);
+            }
+            assertArrayEquals(p1363, P1363Converter.P256.toP1363(P1363Converter.P256.toDer(p1363)));
+        }
+        byte[] p384 = new byte[96];
+        random.nextBytes(p384);
+        assertArrayEquals(p384, P1363Converter.P384.toP1363(P1363Converter.P384.toDer(p384)));
+    }
+
+    @Test
+    public void malformedDer_isRejected() throws Exception {
+        byte[] valid = bytes(0x30, 0x06, 0x02, 0x01, 0x01, 0x02, 0x01, 0x7f);
+        P1363Converter.P256.toP1363(valid);
+
+        // not a sequence
+        assertMalformed(bytes(0x31, 0x06, 0x02, 0x01, 0x01, 0x02, 0x01, 0x7f));
+        // sequence length does not match
+        assertMalformed(bytes(0x30, 0x07, 0x02, 0x01, 0x01, 0x02, 0x01, 0x7f));
+        // trailing bytes after the sequence
+        assertMalformed(bytes(0x30, 0x06, 0x02, 0x01, 0x01, 0x02, 0x01, 0x7f, 0x00));
+        // trailing bytes inside the sequence, after s
+        assertMalformed(bytes(0x30, 0x07, 0x02, 0x01, 0x01, 0x02, 0x01, 0x7f, 0x00));
+        // integer length past the end
+        assertMalformed(bytes(0x30, 0x06, 0x02, 0x01, 0x01, 0x02, 0x05, 0x7f));
+        // empty integer
+        assertMalformed(bytes(0x30, 0x06, 0x02, 0x00, 0x02, 0x02, 0x01, 0x7f));
+        // not an integer
+        assertMalformed(bytes(0x30, 0x06, 0x04, 0x01, 0x01, 0x02, 0x01, 0x7f));
+        // too short
+        assertMalformed(bytes(0x30, 0x02, 0x02, 0x00));
+
+        // a component longer than the curve allows
+        byte[] tooLong = new byte[2 + 2 + 33 + 3];
+        tooLong[0] = 0x30;
+        tooLong[1] = (byte) (tooLong.length - 2);
+        tooLong[2] = 0x02;
+        tooLong[3] = 33;
+        tooLong[4] = 0x01;
+        tooLong[2 + 2 + 33] = 0x02;
+        tooLong[2 + 2 + 33 + 1] = 0x01;
+        tooLong[2 + 2 + 33 + 2] = 0x01;
+        assertMalformed(tooLong);
+
+        try {
+            P1363Converter.P256.toDer(new byte[63]);
+            fail("a P1363 signature of the wrong length must be rejected");
+        } catch (SignatureException e) {
+            // expected
+        }
+    }
+}
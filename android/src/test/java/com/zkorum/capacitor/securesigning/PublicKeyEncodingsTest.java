@@ -0,0 +1,126 @@
+package com.zkorum.capacitor.securesigning;
+
+import static org.junit.Assert.*;
+
+import java.math.BigInteger;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Test;
+
+public class PublicKeyEncodingsTest {
+
+    private static final String BASE58_ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
+
+    private static ECPublicKey generate(String curve) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec(curve));
+        return (ECPublicKey) generator.generateKeyPair().getPublic();
+    }
+
+    private static byte[] base58Decode(String encoded) {
+        BigInteger value = BigInteger.ZERO;
+        for (char c : encoded.toCharArray()) {
+            value = value.multiply(BigInteger.valueOf(58)).add(BigInteger.valueOf(BASE58_ALPHABET.indexOf(c)));
+        }
+        byte[] bytes = value.toByteArray();
+        if (bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        int zeros = 0;
+        while (zeros < encoded.length() && encoded.charAt(zeros) == '1') {
+            zeros++;
+        }
+        byte[] out = new byte[zeros + bytes.length];
+        System.arraycopy(bytes, 0, out, zeros, bytes.length);
+        return out;
+    }
+
+    private static byte[] jwkField(String jwk, String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\":\"([A-Za-z0-9_-]+)\"").matcher(jwk);
+        assertTrue(name + " missing from " + jwk, matcher.find());
+        return Base64.getUrlDecoder().decode(matcher.group(1));
+    }
+
+    private static BigInteger jwkCoordinate(String jwk, String name) {
+        return new BigInteger(1, jwkField(jwk, name));
+    }
+
+    @Test
+    public void p256_encodings() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            ECPublicKey publicKey = generate("secp256r1");
+            PublicKeyEncodings encodings = new PublicKeyEncodings(publicKey);
+            BigInteger x = publicKey.getW().getAffineX();
+            BigInteger y = publicKey.getW().getAffineY();
+            assertEquals(SigningAlgorithm.ES256, encodings.getAlgorithm());
+
+            byte[] uncompressed = Base64.getDecoder().decode(encodings.get(PublicKeyFormat.BASE64));
+            assertEquals(65, uncompressed.length);
+            assertEquals(0x04, uncompressed[0]);
+            assertEquals(x, new BigInteger(1, Arrays.copyOfRange(uncompressed, 1, 33)));
+            assertEquals(y, new BigInteger(1, Arrays.copyOfRange(uncompressed, 33, 65)));
+            assertArrayEquals(uncompressed, Base64.getUrlDecoder().decode(encodings.get(PublicKeyFormat.BASE64URL)));
+
+            // the compressed point decompresses back to the key
+            byte[] compressed = Base64.getDecoder().decode(encodings.get(PublicKeyFormat.COMPRESSED));
+            assertEquals(33, compressed.length);
+            assertEquals(y.testBit(0) ? 0x03 : 0x02, compressed[0]);
+            ECPoint point = CustomNamedCurves.getByName("secp256r1").getCurve().decodePoint(compressed).normalize();
+            assertEquals(x, point.getAffineXCoord().toBigInteger());
+            assertEquals(y, point.getAffineYCoord().toBigInteger());
+
+            // multicodec p256-pub (0x1200) as a varint, then the compressed point
+            String multibase = encodings.get(PublicKeyFormat.MULTIBASE);
+            assertEquals('z', multibase.charAt(0));
+            byte[] multicodec = base58Decode(multibase.substring(1));
+            assertEquals(35, multicodec.length);
+            assertEquals((byte) 0x80, multicodec[0]);
+            assertEquals(0x24, multicodec[1]);
+            assertArrayEquals(compressed, Arrays.copyOfRange(multicodec, 2, 35));
+
+            String didKey = encodings.get(PublicKeyFormat.DID_KEY);
+            assertTrue(didKey, didKey.startsWith("did:key:zDn"));
+            assertEquals("did:key:" + multibase, didKey);
+
+            String jwk = encodings.get(PublicKeyFormat.JWK);
+            assertTrue(jwk.contains("\"kty\":\"EC\""));
+            assertTrue(jwk.contains("\"crv\":\"P-256\""));
+            assertEquals(x, jwkCoordinate(jwk, "x"));
+            assertEquals(y, jwkCoordinate(jwk, "y"));
+        }
+    }
+
+    @Test
+    public void p384_encodings() throws Exception {
+        ECPublicKey publicKey = generate("secp384r1");
+        PublicKeyEncodings encodings = new PublicKeyEncodings(publicKey);
+        assertEquals(SigningAlgorithm.ES384, encodings.getAlgorithm());
+        assertEquals(97, encodings.getUncompressed().length);
+        assertEquals(49, encodings.getCompressed().length);
+        assertTrue(encodings.get(PublicKeyFormat.DID_KEY).startsWith("did:key:z82"));
+
+        String jwk = encodings.get(PublicKeyFormat.JWK);
+        assertTrue(jwk.contains("\"crv\":\"P-384\""));
+        assertEquals(publicKey.getW().getAffineX(), jwkCoordinate(jwk, "x"));
+        assertEquals(publicKey.getW().getAffineY(), jwkCoordinate(jwk, "y"));
+    }
+
+    @Test
+    public void ed25519_encodings() throws Exception {
+        PublicKeyEncodings encodings = new PublicKeyEncodings(KeyPairGenerator.getInstance("Ed25519").generateKeyPair().getPublic());
+        assertEquals(SigningAlgorithm.ED25519, encodings.getAlgorithm());
+        assertEquals(32, encodings.getUncompressed().length);
+        assertArrayEquals(encodings.getUncompressed(), Base64.getDecoder().decode(encodings.get(PublicKeyFormat.COMPRESSED)));
+        assertTrue(encodings.get(PublicKeyFormat.DID_KEY).startsWith("did:key:z6Mk"));
+        String jwk = encodings.get(PublicKeyFormat.JWK);
+        assertTrue(jwk.contains("\"kty\":\"OKP\""));
+        assertArrayEquals(encodings.getUncompressed(), jwkField(jwk, "x"));
+    }
+}
@@ -0,0 +1,157 @@
+package com.zkorum.capacitor.securesigning;
+
+import static org.junit.Assert.*;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+import java.io.File;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.security.Signature;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Plugin methods called with arguments as they arrive from JS, on the in-memory key backend.
+ */
+public class SecureSigningPluginTest {
+
+    private static final String KEY = "test/key";
+
+    /**
+     * Records the outcome of a call instead of sending it to a bridge.
+     */
+    private static final class RecordingCall extends PluginCall {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile JSObject result;
+        private volatile String error;
+        private final AtomicInteger rejections = new AtomicInteger();
+
+        RecordingCall(String method, String json) throws Exception {
+            super(null, "SecureSigning", "1", method, new JSObject(json));
+        }
+
+        @Override
+        public void resolve(JSObject data) {
+            result = data;
+            done.countDown();
+        }
+
+        @Override
+        public void resolve() {
+            this.resolve(new JSObject());
+        }
+
+        @Override
+        public void reject(String msg, String code, Exception ex, JSObject data) {
+            error = code + ": " + msg;
+            rejections.incrementAndGet();
+            done.countDown();
+        }
+
+        String awaitError() throws InterruptedException {
+            assertTrue("the call did not complete", done.await(5, TimeUnit.SECONDS));
+            assertNull("the call was resolved", result);
+            return error;
+        }
+
+        JSObject await() throws InterruptedException {
+            assertTrue("the call did not complete", done.await(5, TimeUnit.SECONDS));
+            assertNull(error, error);
+            return result;
+        }
+    }
+
+    private SecureSigning signing;
+    private SecureSigningPlugin plugin;
+
+    @Before
+    public void setUp() {
+        signing = new SecureSigning(new InMemoryKeyBackend());
+        plugin = new SecureSigningPlugin(signing);
+    }
+
+    @Test
+    public void longParams_acceptEveryJsonNumber() throws Exception {
+        // parsed as they arrive from JS: small numbers are Integer, larger ones Long
+        PluginCall call = new RecordingCall("signFile", "{\"prefixedKey\":\"app/a\",\"offset\":3,\"length\":5000000000,\"ttl\":60000.0}");
+
+        assertEquals(Long.valueOf(3), SecureSigningPlugin.getLongParam(call, "offset"));
+        assertEquals(Long.valueOf(5_000_000_000L), SecureSigningPlugin.getLongParam(call, "length"));
+        assertEquals(Long.valueOf(60_000), SecureSigningPlugin.getLongParam(call, "ttl"));
+        assertNull(SecureSigningPlugin.getLongParam(call, "missing"));
+        assertNull(SecureSigningPlugin.getLongParam(call, "prefixedKey"));
+    }
+
+    @Test
+    public void missingArguments_rejectTheCallOnce() throws Exception {
+        RecordingCall verify = new RecordingCall("verify", "{\"signature\":\"AA==\"}");
+        plugin.verify(verify);
+        assertEquals("capacitorError: Error while fetching keys in capacitor plugins: IllegalArgumentException - publicKey is null or empty", verify.awaitError());
+        assertEquals(1, verify.rejections.get());
+
+        RecordingCall updateSign = new RecordingCall("updateSign", "{}");
+        plugin.updateSign(updateSign);
+        assertTrue(updateSign.awaitError().endsWith("sessionId is null or empty"));
+        assertEquals(1, updateSign.rejections.get());
+    }
+
+    @Test
+    public void sign_rejectsInvalidBase64() throws Exception {
+        signing.generateKeyPair(KEY);
+        RecordingCall call = new RecordingCall("sign", String.format("{\"prefixedKey\":\"%s\",\"data\":\"not base64!\"}", KEY));
+        plugin.sign(call);
+        assertTrue(call.awaitError().startsWith(SecureSigningException.ErrorKind.invalidData.toString()));
+    }
+
+    @Test
+    public void signFile_signsTheRangeGivenAsIntegers() throws Exception {
+        KeyPair keyPair = signing.generateKeyPair(KEY);
+        byte[] content = new byte[100];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        File file = File.createTempFile("signFile", ".bin");
+        try {
+            Files.write(file.toPath(), content);
+            RecordingCall call = new RecordingCall(
+                "signFile",
+                String.format("{\"prefixedKey\":\"%s\",\"path\":\"%s\",\"offset\":10,\"length\":20}", KEY, file.getAbsolutePath())
+            );
+            plugin.signFile(call);
+            String signature = call.await().getString("signature");
+
+            Signature verifier = Signature.getInstance("SHA256withECDSAinP1363Format");
+            verifier.initVerify(keyPair.getPublic());
+            verifier.update(Arrays.copyOfRange(content, 10, 30));
+            assertTrue(verifier.verify(Base64.getDecoder().decode(signature)));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void createSessionKey_acceptsAnIntegerTtl() throws Exception {
+        signing.generateKeyPair(KEY);
+        RecordingCall call = new RecordingCall("createSessionKey", String.format("{\"prefixedKey\":\"%s\",\"ttl\":60000}", KEY));
+        plugin.createSessionKey(call);
+        String sessionId = call.await().getString("sessionId");
+
+        assertNotNull(sessionId);
+        assertNotNull(signing.signWithSession(sessionId, new byte[] { 1, 2, 3 }, SignatureFormat.P1363));
+    }
+
+    @Test
+    public void createSessionKey_rejectsANonPositiveTtl() throws Exception {
+        signing.generateKeyPair(KEY);
+        RecordingCall call = new RecordingCall("createSessionKey", String.format("{\"prefixedKey\":\"%s\",\"ttl\":0}", KEY));
+        plugin.createSessionKey(call);
+        assertNotNull(call.awaitError());
+    }
+}
@@ -0,0 +1,587 @@
+package com.zkorum.capacitor.securesigning;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * SecureSigning running on the in-memory key backend, on the host JVM.
+ */
+public class SecureSigningTest {
+
+    private static final String KEY = "test/key";
+    private static final byte[] DATA = "hello".getBytes(StandardCharsets.UTF_8);
+
+    private SecureSigning signing;
+
+    @Before
+    public void setUp() {
+        signing = new SecureSigning(new InMemoryKeyBackend());
+    }
+
+    private static boolean verify(String algorithm, PublicKey publicKey, byte[] data, String signature) throws Exception {
+        Signature s = Signature.getInstance(algorithm);
+        s.initVerify(publicKey);
+        s.update(data);
+        return s.verify(Base64.getDecoder().decode(signature));
+    }
+
+    @Test
+    public void sign_producesVerifiableSignatures() throws Exception {
+        KeyPair keyPair = signing.generateKeyPair(KEY);
+
+        String p1363 = signing.sign(KEY, DATA);
+        assertEquals(64, Base64.getDecoder().decode(p1363).length);
+        assertTrue(verify("SHA256withECDSAinP1363Format", keyPair.getPublic(), DATA, p1363));
+
+        String der = signing.sign(KEY, DATA, SignatureFormat.DER);
+        assertTrue(verify("SHA256withECDSA", keyPair.getPublic(), DATA, der));
+    }
+
+    @Test
+    public void signFile_signsTheRequestedRange() throws Exception {
+        KeyPair keyPair = signing.generateKeyPair(KEY);
+        byte[] content = new byte[200_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        File file = File.createTempFile("signFile", ".bin");
+        File empty = File.createTempFile("signFile", ".bin");
+        try {
+            Files.write(file.toPath(), content);
+
+            String whole = signing.signFile(KEY, file, 0, -1, SignatureFormat.DER);
+            assertTrue(verify("SHA256withECDSA", keyPair.getPublic(), content, whole));
+            String range = signing.signFile(KEY, file, 10, 100_000, SignatureFormat.DER);
+            assertTrue(verify("SHA256withECDSA", keyPair.getPublic(), Arrays.copyOfRange(content, 10, 100_010), range));
+            String tail = signing.signFile(KEY, file, 150_000, -1, SignatureFormat.DER);
+            assertTrue(verify("SHA256withECDSA", keyPair.getPublic(), Arrays.copyOfRange(content, 150_000, content.length), tail));
+            String none = signing.signFile(KEY, file, content.length, 0, SignatureFormat.DER);
+            assertTrue(verify("SHA256withECDSA", keyPair.getPublic(), new byte[0], none));
+            assertTrue(verify("SHA256withECDSA", keyPair.getPublic(), new byte[0], signing.signFile(KEY, empty, 0, -1, SignatureFormat.DER)));
+
+            long[][] outOfRange = { { -1, -1 }, { content.length + 1, -1 }, { 0, content.length + 1 }, { 10, content.length - 9 } };
+            for (long[] bounds : outOfRange) {
+                try {
+                    signing.signFile(KEY, file, bounds[0], bounds[1], SignatureFormat.DER);
+                    fail(String.format("range %d+%d is outside of the file", bounds[0], bounds[1]));
+                } catch (SecureSigningException e) {
+                    assertEquals(SecureSigningException.ErrorKind.invalidData.toString(), e.getCode());
+                }
+            }
+        } finally {
+            file.delete();
+            empty.delete();
+        }
+    }
+
+    @Test
+    public void signBatch_reportsPerItemErrors() throws Exception {
+        KeyPair keyPair = signing.generateKeyPair(KEY);
+
+        BatchSignResult[] results = signing.signBatch(KEY, new byte[][] { DATA, null, DATA }, SignatureFormat.P1363);
+
+        assertEquals(3, results.length);
+        assertTrue(verify("SHA256withECDSAinP1363Format", keyPair.getPublic(), DATA, results[0].getSignature()));
+        assertNull(results[1].getSignature());
+        assertEquals(SecureSigningException.ErrorKind.invalidData.toString(), results[1].getError().getCode());
+        assertTrue(verify("SHA256withECDSAinP1363Format", keyPair.getPublic(), DATA, results[2].getSignature()));
+    }
+
+    @Test
+    public void signBatch_survivesAFailedSignerReset() throws Exception {
+        AtomicInteger initCount = new AtomicInteger();
+        InMemoryKeyBackend backend = new InMemoryKeyBackend() {
+            @Override
+            public Signature initSign(PrivateKey privateKey, String algorithm) throws SecureSigningException {
+                switch (initCount.incrementAndGet()) {
+                    case 1:
+                        // not initialized, fails the first item
+                        try {
+                            return Signature.getInstance(algorithm);
+                        } catch (NoSuchAlgorithmException e) {
+                            throw new AssertionError(e);
+                        }
+                    case 2:
+                        throw new SecureSigningException(SecureSigningException.ErrorKind.keystoreError);
+                    default:
+                        return super.initSign(privateKey, algorithm);
+                }
+            }
+        };
+        signing = new SecureSigning(backend);
+        KeyPair keyPair = signing.generateKeyPair(KEY);
+
+        BatchSignResult[] results = signing.signBatch(KEY, new byte[][] { DATA, DATA, DATA }, SignatureFormat.P1363);
+
+        assertEquals(SecureSigningException.ErrorKind.invalidData.toString(), results[0].getError().getCode());
+        assertEquals(SecureSigningException.ErrorKind.keystoreError.toString(), results[1].getError().getCode());
+        assertTrue(verify("SHA256withECDSAinP1363Format", keyPair.getPublic(), DATA, results[2].getSignature()));
+    }
+
+    @Test
+    public void streamingSign_matchesOneShotSignature() throws Exception {
+        KeyPair keyPair = signing.generateKeyPair(KEY);
+        String publicKey = signing.getPublicKeyEncodings(KEY).get(PublicKeyFormat.BASE64);
+        byte[] oneShot = Base64.getDecoder().decode(signing.sign(KEY, DATA));
+
+        String sessionId = signing.beginSign(KEY);
+        assertEquals(KEY, signing.getSignSessionKey(sessionId));
+        for (int offset = 0; offset < DATA.length; offset += 3) {
+            signing.updateSign(sessionId, Arrays.copyOfRange(DATA, offset, Math.min(offset + 3, DATA.length)));
+        }
+        byte[] chunked = Base64.getDecoder().decode(signing.finishSign(sessionId, SignatureFormat.P1363));
+
+        // ECDSA signatures are randomized: both must verify over the same payload
+        assertTrue(signing.verify(publicKey, DATA, oneShot, SignatureFormat.P1363));
+        assertTrue(signing.verify(publicKey, DATA, chunked, SignatureFormat.P1363));
+        assertTrue(verify("SHA256withECDSAinP1363Format", keyPair.getPublic(), DATA, Base64.getEncoder().encodeToString(chunked)));
+        assertNull(signing.getSignSessionKey(sessionId));
+
+        String cancelled = signing.beginSign(KEY);
+        signing.cancelSign(cancelled);
+        try {
+            signing.finishSign(cancelled, SignatureFormat.P1363);
+            fail("a cancelled session must not sign");
+        } catch (SecureSigningException e) {
+            assertEquals(SecureSigningException.ErrorKind.invalidSession.toString(), e.getCode());
+        }
+    }
+
+    @Test
+    public void signSessions_expireAndAreCapped() throws Exception {
+        SignSessions sessions = new SignSessions(2, 50);
+        Signature signer = Signature.getInstance("SHA256withECDSA");
+        sessions.reserve();
+        String first = sessions.open(KEY, signer, SigningAlgorithm.ES256);
+        sessions.reserve();
+        sessions.open(KEY, signer, SigningAlgorithm.ES256);
+        try {
+            sessions.reserve();
+            fail("sessions beyond the limit must be rejected");
+        } catch (SecureSigningException e) {
+            assertEquals(SecureSigningException.ErrorKind.busy.toString(), e.getCode());
+        }
+
+        Thread.sleep(100);
+        try {
+            sessions.get(first);
+            fail("an idle session must expire");
+        } catch (SecureSigningException e) {
+            assertEquals(SecureSigningException.ErrorKind.invalidSession.toString(), e.getCode());
+        }
+        // expired sessions no longer count against the limit
+        sessions.reserve();
+        assertNotNull(sessions.get(sessions.open(KEY, signer, SigningAlgorithm.ES256)));
+        sessions.reserve();
+        assertNotNull(sessions.get(sessions.open(KEY, signer, SigningAlgorithm.ES256)));
+    }
+
+    @Test
+    public void beginSign_capsConcurrentSessions() throws Exception {
+        signing.generateKeyPair(KEY);
+        // failed opens give their slot back
+        for (int i = 0; i < 20; i++) {
+            try {
+                signing.beginSign("test/missing");
+                fail("a missing key cannot open a session");
+            } catch (SecureSigningException e) {
+                assertEquals(SecureSigningException.ErrorKind.missingKey.toString(), e.getCode());
+            }
+        }
+
+        int threads = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> opens = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                opens.add(
+                    pool.submit(() -> {
+                        start.await();
+                        try {
+                            return signing.beginSign(KEY);
+                        } catch (SecureSigningException e) {
+                            assertEquals(SecureSigningException.ErrorKind.busy.toString(), e.getCode());
+                            return null;
+                        }
+                    })
+                );
+            }
+            start.countDown();
+            List<String> opened = new ArrayList<>();
+            for (Future<String> open : opens) {
+                String sessionId = open.get(5, TimeUnit.SECONDS);
+                if (sessionId != null) {
+                    opened.add(sessionId);
+                }
+            }
+            assertEquals(8, opened.size());
+
+            for (String sessionId : opened) {
+                signing.cancelSign(sessionId);
+            }
+            // cancelling twice does not free a slot twice
+            signing.cancelSign(opened.get(0));
+            for (int i = 0; i < 8; i++) {
+                signing.beginSign(KEY);
+            }
+            try {
+                signing.beginSign(KEY);
+                fail("sessions beyond the limit must be rejected");
+            } catch (SecureSigningException e) {
+                assertEquals(SecureSigningException.ErrorKind.busy.toString(), e.getCode());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void createKeyPairIfDoesNotExist_keepsExistingKey() throws Exception {
+        String created = signing.createKeyPairIfDoesNotExist(KEY).getPublic().toString();
+        String existing = signing.createKeyPairIfDoesNotExist(KEY).getPublic().toString();
+        assertEquals(created, existing);
+    }
+
+    @Test
+    public void createKeyPairIfDoesNotExist_sharesConcurrentGenerations() throws Exception {
+        AtomicInteger generations = new AtomicInteger();
+        signing =
+            new SecureSigning(
+                new InMemoryKeyBackend() {
+                    @Override
+                    public KeyPair generate(String alias, KeyGenOptions options) throws SecureSigningException {
+                        generations.incrementAndGet();
+                        return super.generate(alias, options);
+                    }
+                }
+            );
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PublicKey>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(
+                executor.submit(() -> {
+                    start.await();
+                    return signing.createKeyPairIfDoesNotExist(KEY).getPublic();
+                })
+            );
+        }
+        start.countDown();
+        PublicKey first = results.get(0).get();
+        for (Future<PublicKey> result : results) {
+            assertEquals(first, result.get());
+        }
+        executor.shutdown();
+        assertEquals(1, generations.get());
+    }
+
+    @Test
+    public void deleteKeyPair_invalidatesCachedKey() throws Exception {
+        signing.generateKeyPair(KEY);
+        signing.sign(KEY, DATA);
+        assertTrue(signing.doesKeyPairExist(KEY));
+
+        assertEquals(DeleteStatus.DELETED, signing.deleteKeyPair(KEY));
+        assertEquals(DeleteStatus.NOT_FOUND, signing.deleteKeyPair(KEY));
+        assertFalse(signing.doesKeyPairExist(KEY));
+        try {
+            signing.sign(KEY, DATA);
+            fail("signing with a deleted key must fail");
+        } catch (SecureSigningException e) {
+            assertEquals(SecureSigningException.ErrorKind.missingKey.toString(), e.getCode());
+        }
+    }
+
+    @Test
+    public void listKeys_tracksGeneratedAndDeletedKeys() throws Exception {
+        InMemoryKeyBackend backend = new InMemoryKeyBackend();
+        backend.generate("app/existing", KeyGenOptions.DEFAULT);
+        signing = new SecureSigning(backend);
+
+        signing.generateKeyPair("app/b");
+        signing.generateKeyPair("app/a");
+        signing.generateKeyPair("other/c");
+
+        assertEquals(Arrays.asList("app/a", "app/b", "app/existing"), signing.listKeys("app/"));
+        signing.deleteKeyPair("app/b");
+        assertEquals(Arrays.asList("app/a", "app/existing"), signing.listKeys("app/"));
+        assertEquals(Arrays.asList("app/a", "app/existing", "other/c"), signing.listKeys(""));
+    }
+
+    @Test
+    public void listKeys_keepsKeysGeneratedWhileLoading() throws Exception {
+        CountDownLatch listing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryKeyBackend backend = new InMemoryKeyBackend() {
+            @Override
+            public List<String> list() {
+                // snapshot taken before the concurrent generation
+                List<String> aliases = super.list();
+                listing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return aliases;
+            }
+        };
+        signing = new SecureSigning(backend);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<String>> loading = pool.submit(() -> signing.listKeys(""));
+            assertTrue(listing.await(5, TimeUnit.SECONDS));
+            Future<KeyPair> generation = pool.submit(() -> signing.generateKeyPair(KEY));
+            // the generation is done in the backend, its index update must wait for the load
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (!backend.contains(KEY) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            loading.get();
+            generation.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        assertTrue(signing.doesKeyPairExist(KEY));
+        assertEquals(Arrays.asList(KEY), signing.listKeys(""));
+    }
+
+    @Test
+    public void keyPool_servesGenerationsThroughAliasMapping() throws Exception {
+        InMemoryKeyBackend backend = new InMemoryKeyBackend();
+        AliasStore aliasStore = new InMemoryAliasStore();
+        signing = new SecureSigning(backend, aliasStore);
+        signing.startKeyPool(2, KeyGenOptions.DEFAULT);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (backend.list().size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        KeyPair keyPair = signing.generateKeyPair(KEY);
+        String backendAlias = aliasStore.get(KEY);
+        assertNotNull(backendAlias);
+        assertTrue(KeyPool.isPoolAlias(backendAlias));
+        assertTrue(verify("SHA256withECDSAinP1363Format", keyPair.getPublic(), DATA, signing.sign(KEY, DATA)));
+        assertTrue(signing.doesKeyPairExist(KEY));
+        assertEquals(Arrays.asList(KEY), signing.listKeys(""));
+
+        assertEquals(DeleteStatus.DELETED, signing.deleteKeyPair(KEY));
+        assertFalse(signing.doesKeyPairExist(KEY));
+        assertNull(backend.lookup(backendAlias));
+        signing.stopKeyPool();
+    }
+
+    @Test
+    public void verify_acceptsOwnSignaturesOnly() throws Exception {
+        signing.generateKeyPair(KEY);
+        PublicKeyEncodings publicKey = signing.getPublicKeyEncodings(KEY);
+        String uncompressed = publicKey.get(PublicKeyFormat.BASE64);
+        String compressed = publicKey.get(PublicKeyFormat.COMPRESSED);
+        byte[] p1363 = Base64.getDecoder().decode(signing.sign(KEY, DATA));
+        byte[] der = Base64.getDecoder().decode(signing.sign(KEY, DATA, SignatureFormat.DER));
+
+        assertTrue(signing.verify(uncompressed, DATA, p1363, SignatureFormat.P1363));
+        assertTrue(signing.verify(compressed, DATA, p1363, SignatureFormat.P1363));
+        assertTrue(signing.verify(uncompressed, DATA, der, SignatureFormat.DER));
+        assertFalse(signing.verify(uncompressed, "other".getBytes(StandardCharsets.UTF_8), p1363, SignatureFormat.P1363));
+        assertFalse(signing.verify(uncompressed, DATA, new byte[3], SignatureFormat.P1363));
+
+        int size = 20;
+        String[] publicKeys = new String[size];
+        byte[][] data = new byte[size][];
+        byte[][] signatures = new byte[size][];
+        for (int i = 0; i < size; i++) {
+            publicKeys[i] = i % 2 == 0 ? uncompressed : compressed;
+            data[i] = i == 5 ? new byte[0] : DATA;
+            signatures[i] = p1363;
+        }
+        publicKeys[7] = "AAAA";
+        // a valid key of an unsupported curve
+        KeyPairGenerator p521 = KeyPairGenerator.getInstance("EC");
+        p521.initialize(new ECGenParameterSpec("secp521r1"));
+        publicKeys[9] = Base64.getEncoder().encodeToString(p521.generateKeyPair().getPublic().getEncoded());
+        BatchVerifyResult[] results = signing.verifyBatch(publicKeys, data, signatures, SignatureFormat.P1363);
+        for (int i = 0; i < size; i++) {
+            if (i == 7 || i == 9) {
+                assertEquals(SecureSigningException.ErrorKind.invalidData.toString(), results[i].getError().getCode());
+            } else {
+                assertEquals(i != 5, results[i].isValid());
+            }
+        }
+    }
+
+    @Test
+    public void algorithms_signWithTheAlgorithmOfTheKey() throws Exception {
+        String[] digests = { KeyGenOptions.DIGEST_SHA256 };
+
+        KeyPair p384 = signing.generateKeyPair(KEY, new KeyGenOptions(SigningAlgorithm.ES384, digests, false));
+        PublicKeyEncodings p384Key = signing.getPublicKeyEncodings(KEY);
+        byte[] p384Signature = Base64.getDecoder().decode(signing.sign(KEY, DATA));
+        assertEquals(97, p384Key.getUncompressed().length);
+        assertEquals(96, p384Signature.length);
+        assertTrue(verify("SHA384withECDSA", p384.getPublic(), DATA, signing.sign(KEY, DATA, SignatureFormat.DER)));
+        assertTrue(signing.verify(p384Key.get(PublicKeyFormat.COMPRESSED), DATA, p384Signature, SignatureFormat.P1363));
+        assertTrue(signing.signJws(KEY, "{\"alg\":\"ES384\"}", "{}").length() > 0);
+        assertEquals("ES384", signing.getJwsAlgorithm(KEY));
+
+        signing.generateKeyPair(KEY, new KeyGenOptions(SigningAlgorithm.ED25519, digests, false));
+        PublicKeyEncodings ed25519Key = signing.getPublicKeyEncodings(KEY);
+        byte[] ed25519Signature = Base64.getDecoder().decode(signing.sign(KEY, DATA));
+        assertEquals(32, ed25519Key.getUncompressed().length);
+        assertEquals(64, ed25519Signature.length);
+        assertTrue(ed25519Key.get(PublicKeyFormat.MULTIBASE).startsWith("z6Mk"));
+        assertTrue(signing.verify(ed25519Key.get(PublicKeyFormat.BASE64), DATA, ed25519Signature, SignatureFormat.P1363));
+        assertFalse(signing.verify(ed25519Key.get(PublicKeyFormat.BASE64), DATA, p384Signature, SignatureFormat.P1363));
+        assertEquals("EdDSA", signing.getJwsAlgorithm(KEY));
+        try {
+            signing.signDigest(KEY, new byte[32], SignatureFormat.P1363);
+            fail("Ed25519 keys must not sign prehashed digests");
+        } catch (SecureSigningException e) {
+            assertEquals(SecureSigningException.ErrorKind.invalidData.toString(), e.getCode());
+        }
+    }
+
+    @Test
+    public void signMerkleBatch_producesVerifiableInclusionProofs() throws Exception {
+        signing.generateKeyPair(KEY);
+        String publicKey = signing.getPublicKeyEncodings(KEY).get(PublicKeyFormat.BASE64);
+        for (int size = 1; size <= 9; size++) {
+            byte[][] messages = new byte[size][];
+            for (int i = 0; i < size; i++) {
+                messages[i] = ("message " + i).getBytes(StandardCharsets.UTF_8);
+            }
+            MerkleBatchSignature batch = signing.signMerkleBatch(KEY, messages, SignatureFormat.P1363);
+            byte[] signature = Base64.getDecoder().decode(batch.getSignature());
+            for (int i = 0; i < size; i++) {
+                List<byte[]> proof = batch.getProof(i);
+                assertTrue(signing.verifyMerkleProof(publicKey, messages[i], i, size, proof, signature, SignatureFormat.P1363));
+                assertFalse(signing.verifyMerkleProof(publicKey, DATA, i, size, proof, signature, SignatureFormat.P1363));
+                if (size > 1) {
+                    int other = (i + 1) % size;
+                    assertFalse(signing.verifyMerkleProof(publicKey, messages[i], other, size, proof, signature, SignatureFormat.P1363));
+                }
+            }
+        }
+
+        // RFC 6962 tree of 3 leaves: hash(hash(l0, l1), l2)
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        byte[][] leaves = new byte[3][];
+        for (int i = 0; i < 3; i++) {
+            sha256.update((byte) 0);
+            leaves[i] = sha256.digest(new byte[] { (byte) i });
+        }
+        sha256.update((byte) 1);
+        sha256.update(leaves[0]);
+        byte[] left = sha256.digest(leaves[1]);
+        sha256.update((byte) 1);
+        sha256.update(left);
+        byte[] root = sha256.digest(leaves[2]);
+        byte[][] messages = { { 0 }, { 1 }, { 2 } };
+        assertArrayEquals(root, signing.signMerkleBatch(KEY, messages, SignatureFormat.P1363).getRoot());
+    }
+
+    @Test
+    public void signJws_producesCompactEs256Token() throws Exception {
+        KeyPair keyPair = signing.generateKeyPair(KEY);
+        String header = "{\"alg\":\"ES256\",\"typ\":\"JWT\"}";
+        String payload = "{\"sub\":\"did:key:z\"}";
+
+        String[] parts = signing.signJws(KEY, header, payload).split("\\.");
+
+        assertEquals(3, parts.length);
+        assertEquals(header, new String(Base64.getUrlDecoder().decode(parts[0]), StandardCharsets.UTF_8));
+        assertEquals(payload, new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8));
+        Signature s = Signature.getInstance("SHA256withECDSAinP1363Format");
+        s.initVerify(keyPair.getPublic());
+        s.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+        assertTrue(s.verify(Base64.getUrlDecoder().decode(parts[2])));
+    }
+
+    @Test
+    public void warmUp_loadsRequestedKeys() throws Exception {
+        InMemoryKeyBackend backend = new InMemoryKeyBackend() {
+            @Override
+            public KeyPair lookup(String alias) {
+                if (alias.equals("broken")) {
+                    throw new IllegalArgumentException("Unsupported key");
+                }
+                return super.lookup(alias);
+            }
+        };
+        signing = new SecureSigning(backend);
+        signing.generateKeyPair(KEY);
+        backend.generate("broken", KeyGenOptions.DEFAULT);
+        List<WarmUp.Status> progress = new CopyOnWriteArrayList<>();
+        WarmUp warmUp = new WarmUp(signing, Arrays.asList(KEY, "broken", "missing"), progress::add);
+        assertEquals(WarmUp.State.idle, warmUp.getStatus().state);
+
+        warmUp.start();
+        assertTrue(warmUp.await(5, TimeUnit.SECONDS));
+
+        WarmUp.Status status = warmUp.getStatus();
+        assertEquals(WarmUp.State.done, status.state);
+        assertEquals(5, status.completed);
+        assertEquals(5, status.total);
+        assertEquals(1, status.warmedKeys);
+        assertEquals(1, status.failedKeys);
+        // running, then one update per step, then done
+        assertEquals(7, progress.size());
+        assertEquals("providers", progress.get(1).step);
+        assertEquals(status, progress.get(6));
+    }
+
+    @Test
+    public void createSessionKey_signsUntilUsedUp() throws Exception {
+        signing.generateKeyPair(KEY);
+        String hardwareKey = signing.getPublicKeyEncodings(KEY).get(PublicKeyFormat.BASE64);
+
+        SessionKeyDelegation sessionKey = signing.createSessionKey(KEY, 60_000, 2);
+
+        String[] token = sessionKey.getToken().split("\\.");
+        byte[] signingInput = (token[0] + "." + token[1]).getBytes(StandardCharsets.US_ASCII);
+        assertTrue(signing.verify(hardwareKey, signingInput, Base64.getUrlDecoder().decode(token[2]), SignatureFormat.P1363));
+        String payload = new String(Base64.getUrlDecoder().decode(token[1]), StandardCharsets.UTF_8);
+        assertTrue(payload.contains("\"sub\":\"" + sessionKey.getPublicKey().get(PublicKeyFormat.DID_KEY) + "\""));
+        assertTrue(payload.contains("\"maxUses\":2"));
+
+        String sessionPublicKey = sessionKey.getPublicKey().get(PublicKeyFormat.BASE64);
+        for (int i = 0; i < 2; i++) {
+            byte[] signature = Base64.getDecoder().decode(signing.signWithSession(sessionKey.getSessionId(), DATA, SignatureFormat.P1363));
+            assertTrue(signing.verify(sessionPublicKey, DATA, signature, SignatureFormat.P1363));
+        }
+        try {
+            signing.signWithSession(sessionKey.getSessionId(), DATA, SignatureFormat.P1363);
+            fail("a used up session key must not sign");
+        } catch (SecureSigningException e) {
+            assertEquals(SecureSigningException.ErrorKind.invalidSession.toString(), e.getCode());
+        }
+    }
+}
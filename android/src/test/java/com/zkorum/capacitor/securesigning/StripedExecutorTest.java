@@ -0,0 +1,89 @@
+package com.zkorum.capacitor.securesigning;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class StripedExecutorTest {
+
+    @Test
+    public void tasksOfAKey_runInSubmissionOrder() throws Exception {
+        StripedExecutor executor = new StripedExecutor("test", 4, 1000);
+        String[] keys = { "app/a", "app/b", "app/c" };
+        List<List<Integer>> runs = new ArrayList<>();
+        for (int k = 0; k < keys.length; k++) {
+            runs.add(Collections.synchronizedList(new ArrayList<>()));
+        }
+        int perKey = 500;
+        CountDownLatch done = new CountDownLatch(keys.length * perKey);
+        for (int i = 0; i < perKey; i++) {
+            for (int k = 0; k < keys.length; k++) {
+                int task = i;
+                List<Integer> run = runs.get(k);
+                executor.execute(
+                    keys[k],
+                    () -> {
+                        run.add(task);
+                        done.countDown();
+                    }
+                );
+            }
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        for (List<Integer> run : runs) {
+            assertEquals(perKey, run.size());
+            for (int i = 0; i < perKey; i++) {
+                assertEquals(i, (int) run.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void fullStripe_rejectsNewTasks() throws Exception {
+        StripedExecutor executor = new StripedExecutor("test", 1, 2);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(
+            "key",
+            () -> {
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        );
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        // the queue holds two more tasks, whatever their key
+        executor.execute("key", () -> {});
+        executor.execute("other", () -> {});
+        try {
+            executor.execute("key", () -> {});
+            fail("a task beyond the queue capacity must be rejected");
+        } catch (RejectedExecutionException e) {
+            // expected, reported as busy by the plugin
+        }
+
+        release.countDown();
+        CountDownLatch drained = new CountDownLatch(1);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (drained.getCount() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                executor.execute("key", drained::countDown);
+            } catch (RejectedExecutionException e) {
+                Thread.sleep(10);
+            }
+        }
+        assertTrue(drained.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+}
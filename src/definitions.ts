@@ -1,3 +1,5 @@
+import type { PluginListenerHandle } from '@capacitor/core';
+
 export enum SigningErrorType {
   /**
    * The key is null or empty.
@@ -29,6 +31,16 @@ export enum SigningErrorType {
    */
   osError = 'osError',
 
+  /**
+   * The signing session does not exist or has expired.
+   */
+  invalidSession = 'invalidSession',
+
+  /**
+   * Too many operations are pending, the call was rejected instead of queued.
+   */
+  busy = 'busy',
+
   /**
    * An unclassified system-level error occurred.
    */
@@ -62,22 +74,435 @@ export class SigningError extends Error {
   }
 }
 
+/**
+ * Encoding of returned signatures: `p1363` (fixed-size r || s, the default)
+ * or `der` (ASN.1, as produced by the keystore, returned without conversion).
+ * Ed25519 signatures are always the raw 64 bytes.
+ *
+ * Android only: iOS ignores `format` and always returns `der`.
+ */
+export type SignatureFormat = 'p1363' | 'der';
+
+/**
+ * Encoding of returned public keys:
+ * - `base64`: uncompressed point (0x04 || x || y), the default
+ * - `base64url`: uncompressed point, base64url without padding
+ * - `compressed`: compressed point (33 bytes for P-256), base64
+ * - `multibase`: multicodec-prefixed compressed point, base58btc multibase
+ * - `didKey`: `did:key` identifier
+ * - `jwk`: JSON Web Key, serialized as a string
+ *
+ * Android only: iOS ignores `format` and always returns `base64`.
+ */
+export type PublicKeyFormat =
+  | 'base64'
+  | 'base64url'
+  | 'compressed'
+  | 'multibase'
+  | 'didKey'
+  | 'jwk';
+
+/**
+ * Digests a key can be used with, `NONE` allows `signDigest`.
+ */
+export type KeyDigest = 'NONE' | 'SHA-256' | 'SHA-384' | 'SHA-512';
+
+/**
+ * Signature algorithm of a key: ECDSA on P-256 or P-384, or Ed25519.
+ * Ed25519 keys require Android 13 or later, their public keys are the raw
+ * 32 bytes in every format but `jwk`.
+ */
+export type KeyAlgorithm = 'ES256' | 'ES384' | 'Ed25519';
+
+/**
+ * Android only: iOS ignores `keyOptions` and always generates a P-256
+ * (`ES256`) key.
+ */
+export interface KeyGenerationOptions {
+  /**
+   * Signature algorithm of the key.
+   *
+   * @default 'ES256'
+   */
+  algorithm?: KeyAlgorithm;
+
+  /**
+   * Digests the key is authorized for. Include `NONE` to sign prehashed
+   * digests with `signDigest`.
+   *
+   * @default ['SHA-256', 'SHA-512']
+   */
+  digests?: KeyDigest[];
+
+  /**
+   * Store the key in StrongBox instead of the TEE. StrongBox is usually much
+   * slower; generation fails with `keyGenerationError` if it is unavailable.
+   *
+   * @default false
+   */
+  strongBox?: boolean;
+}
+
+export interface SignBatchResult {
+  /**
+   * The base64-encoded signature, present if the payload was signed.
+   */
+  signature?: string;
+
+  /**
+   * Present if this payload could not be signed.
+   */
+  error?: { code: SigningErrorType; message: string };
+}
+
+export interface VerifyBatchItem {
+  /**
+   * Base64-encoded public key: uncompressed or compressed point, or X.509
+   * SubjectPublicKeyInfo.
+   */
+  publicKey: string;
+
+  /**
+   * The base64-encoded signed data.
+   */
+  data: string;
+
+  /**
+   * The base64-encoded signature.
+   */
+  signature: string;
+}
+
+export interface VerifyBatchResult {
+  /**
+   * Whether the signature is valid, present if it could be checked.
+   */
+  valid?: boolean;
+
+  /**
+   * Present if this item could not be checked, e.g. its public key is malformed.
+   */
+  error?: { code: SigningErrorType; message: string };
+}
+
+/**
+ * Progress of the warm-up started at load, see the `warmUp` configuration.
+ */
+export interface WarmUpStatus {
+  /**
+   * `idle` if the warm-up is disabled, then `running` until `done`, or
+   * `failed` if the providers or the keystore could not be loaded.
+   */
+  state: 'idle' | 'running' | 'done' | 'failed';
+
+  /**
+   * Last completed step: `providers`, `keystore`, or a `prefixedKey` of
+   * `warmUpKeys`.
+   */
+  step?: string;
+
+  completed: number;
+
+  total: number;
+
+  /**
+   * Keys of `warmUpKeys` loaded ahead of time. Missing keys are not.
+   */
+  warmedKeys: number;
+
+  /**
+   * Keys of `warmUpKeys` that could not be loaded, they are loaded on first
+   * use instead.
+   */
+  failedKeys: number;
+
+  /**
+   * Time spent since the warm-up started, in milliseconds.
+   */
+  duration: number;
+
+  /**
+   * Present if `state` is `failed`.
+   */
+  error?: { code: SigningErrorType; message: string };
+}
+
+/**
+ * Latency distribution of a measured section, durations in microseconds.
+ */
+export interface LatencyStats {
+  count: number;
+  mean: number;
+  p50: number;
+  p95: number;
+  p99: number;
+  max: number;
+}
+
+export interface OperationMetrics {
+  /**
+   * Completed calls, successful or not.
+   */
+  count: number;
+
+  errorCount: number;
+
+  /**
+   * Failed calls by error code.
+   */
+  errors: { [code: string]: number };
+
+  /**
+   * Latency of the whole call, from queueing to completion.
+   */
+  latency: LatencyStats;
+}
+
+export interface SigningMetrics {
+  enabled: boolean;
+
+  /**
+   * Time of the last reset, in milliseconds since the epoch.
+   */
+  since: number;
+
+  /**
+   * Latency of the native phases: `keystoreLoad`, `keyLookup`, `keyGeneration`,
+   * `signerInit`, `sign`, `signatureEncoding`, `payloadDecoding` and `queueWait`.
+   * Phases that were not measured yet are omitted.
+   */
+  phases: { [phase: string]: LatencyStats };
+
+  /**
+   * Metrics by plugin method, e.g. `sign`.
+   */
+  operations: { [method: string]: OperationMetrics };
+}
+
 export interface SecureSigningPlugin {
   doesKeyPairExist(options: {
     prefixedKey: string;
   }): Promise<{ isExisting: boolean }>;
   generateKeyPair(options: {
     prefixedKey: string;
+    format?: PublicKeyFormat;
+    keyOptions?: KeyGenerationOptions;
   }): Promise<{ publicKey: string }>;
   sign(options: {
     prefixedKey: string;
     data: string;
+    format?: SignatureFormat;
   }): Promise<{ signature: string }>;
   createKeyPairIfDoesNotExist(options: {
     prefixedKey: string;
+    format?: PublicKeyFormat;
+    keyOptions?: KeyGenerationOptions;
   }): Promise<{ publicKey: string }>;
   deleteKeyPair(options: {
     prefixedKey: string;
   }): Promise<{ deleteStatus: string }>;
-  getKeyPair(options: { prefixedKey: string }): Promise<{ publicKey: string }>;
+  getKeyPair(options: {
+    prefixedKey: string;
+    format?: PublicKeyFormat;
+  }): Promise<{ publicKey: string }>;
+  /**
+   * Sign a base64-encoded digest computed by the caller (32 bytes for ES256,
+   * 48 for ES384), without hashing it again. The key must allow the `NONE`
+   * digest; Ed25519 keys cannot sign digests.
+   *
+   * Only available on Android.
+   */
+  signDigest(options: {
+    prefixedKey: string;
+    digest: string;
+    format?: SignatureFormat;
+  }): Promise<{ signature: string }>;
+  /**
+   * Sign many base64-encoded payloads with the same key in a single call.
+   * Results are returned in the order of `data`, with per-item errors.
+   *
+   * Only available on Android.
+   */
+  signBatch(options: {
+    prefixedKey: string;
+    data: string[];
+    format?: SignatureFormat;
+  }): Promise<{ results: SignBatchResult[] }>;
+  /**
+   * Sign a local file natively, without passing its content through the bridge.
+   * `path` is an absolute path or a `file://` URI. By default the whole file is
+   * signed, `offset` and `length` (in bytes) restrict it to a range.
+   *
+   * Only available on Android.
+   */
+  signFile(options: {
+    prefixedKey: string;
+    path: string;
+    offset?: number;
+    length?: number;
+    format?: SignatureFormat;
+  }): Promise<{ signature: string }>;
+  /**
+   * Open a streaming signature for large payloads.
+   * Feed it with `updateSign`, then get the signature with `finishSign`, or
+   * abandon it with `cancelSign`. Sessions left idle for 60 seconds expire.
+   *
+   * Only available on Android.
+   */
+  beginSign(options: { prefixedKey: string }): Promise<{ sessionId: string }>;
+  /**
+   * Append a base64-encoded chunk of the payload to a streaming signature.
+   *
+   * Only available on Android.
+   */
+  updateSign(options: { sessionId: string; data: string }): Promise<void>;
+  /**
+   * Complete a streaming signature and return the signature of all chunks.
+   *
+   * Only available on Android.
+   */
+  finishSign(options: {
+    sessionId: string;
+    format?: SignatureFormat;
+  }): Promise<{ signature: string }>;
+  /**
+   * Close a streaming signature without signing. Unknown sessions are ignored.
+   *
+   * Only available on Android.
+   */
+  cancelSign(options: { sessionId: string }): Promise<void>;
+  /**
+   * Verify an ES256, ES384 or Ed25519 signature of base64-encoded `data`.
+   * `publicKey` is a base64 (or base64url) uncompressed or compressed point,
+   * a raw Ed25519 key or an X.509 SubjectPublicKeyInfo; the algorithm follows
+   * from the key. Malformed signatures are not valid.
+   *
+   * Only available on Android.
+   */
+  verify(options: {
+    publicKey: string;
+    data: string;
+    signature: string;
+    format?: SignatureFormat;
+  }): Promise<{ valid: boolean }>;
+  /**
+   * Verify many signatures in a single call, in parallel for large batches.
+   * Results are returned in the order of `items`, with per-item errors.
+   *
+   * Only available on Android.
+   */
+  verifyBatch(options: {
+    items: VerifyBatchItem[];
+    format?: SignatureFormat;
+  }): Promise<{ results: VerifyBatchResult[] }>;
+  /**
+   * Build and sign a JWS (e.g. a JWT or UCAN) natively, and return its compact
+   * serialization. `header` and `payload` are serialized as JSON in the given
+   * key order. `alg` must be the one of the key (`ES256`, `ES384` or `EdDSA`)
+   * and is added if missing; the default header is `{ alg, typ: 'JWT' }`.
+   *
+   * Only available on Android.
+   */
+  signJws(options: {
+    prefixedKey: string;
+    header?: { [key: string]: unknown };
+    payload: { [key: string]: unknown };
+  }): Promise<{ token: string }>;
+  /**
+   * Create an in-memory software P-256 key for high-rate signing with
+   * `signWithSession`, valid for `ttl` milliseconds and at most `maxUses`
+   * signatures if given. `delegation` is a JWT signed once by the
+   * hardware key with its algorithm, whose payload binds the session key
+   * (`sub`, a `did:key`) to the hardware key (`iss`) until `exp`. Session
+   * keys always sign ES256, whatever the algorithm of the hardware key.
+   *
+   * Only available on Android.
+   */
+  createSessionKey(options: {
+    prefixedKey: string;
+    ttl: number;
+    maxUses?: number;
+    format?: PublicKeyFormat;
+  }): Promise<{ sessionId: string; publicKey: string; delegation: string }>;
+  /**
+   * Sign base64-encoded `data` in software with a session key, always ES256.
+   * Fails with `invalidSession` once the key has expired or is used up.
+   *
+   * Only available on Android.
+   */
+  signWithSession(options: {
+    sessionId: string;
+    data: string;
+    format?: SignatureFormat;
+  }): Promise<{ signature: string }>;
+  /**
+   * Sign many base64-encoded messages with a single keystore signature: the
+   * messages are the leaves of a SHA-256 Merkle tree (RFC 6962), whose root is
+   * signed. `proofs[i]` is the inclusion proof of `data[i]`, as base64 sibling
+   * hashes from the leaf up to the root.
+   *
+   * Only available on Android.
+   */
+  signMerkleBatch(options: {
+    prefixedKey: string;
+    data: string[];
+    format?: SignatureFormat;
+  }): Promise<{
+    root: string;
+    signature: string;
+    treeSize: number;
+    proofs: string[][];
+  }>;
+  /**
+   * Verify that base64-encoded `data` is at `index` of a batch signed with
+   * `signMerkleBatch`, given its proof, the batch size and the root signature.
+   *
+   * Only available on Android.
+   */
+  verifyMerkleProof(options: {
+    publicKey: string;
+    data: string;
+    index: number;
+    treeSize: number;
+    proof: string[];
+    signature: string;
+    format?: SignatureFormat;
+  }): Promise<{ valid: boolean }>;
+  /**
+   * List the `prefixedKey` of the existing key pairs starting with `prefix`,
+   * sorted. Without `prefix`, all key pairs are listed.
+   *
+   * Only available on Android.
+   */
+  listKeys(options?: { prefix?: string }): Promise<{ keys: string[] }>;
+  /**
+   * Return the latency and error metrics recorded since the last reset.
+   * Metrics are only recorded when enabled, with the `metrics` configuration
+   * or `resetMetrics`.
+   *
+   * Only available on Android.
+   */
+  getMetrics(): Promise<SigningMetrics>;
+  /**
+   * Clear the recorded metrics, and enable or disable recording if `enabled` is given.
+   *
+   * Only available on Android.
+   */
+  resetMetrics(options?: { enabled?: boolean }): Promise<void>;
+  /**
+   * Return the progress of the warm-up started at load.
+   *
+   * Only available on Android.
+   */
+  getWarmUpStatus(): Promise<WarmUpStatus>;
+  /**
+   * Listen for the progress of the warm-up started at load, reported after
+   * each step. The final status is kept until a listener is added.
+   *
+   * Only available on Android.
+   */
+  addListener(
+    eventName: 'warmUpProgress',
+    listenerFunc: (status: WarmUpStatus) => void,
+  ): Promise<PluginListenerHandle>;
 }
@@ -1,6 +1,16 @@
 import { WebPlugin } from '@capacitor/core';
 
-import type { SecureSigningPlugin } from './definitions';
+import type {
+  KeyGenerationOptions,
+  PublicKeyFormat,
+  SecureSigningPlugin,
+  SignatureFormat,
+  SignBatchResult,
+  SigningMetrics,
+  VerifyBatchItem,
+  VerifyBatchResult,
+  WarmUpStatus,
+} from './definitions';
 
 export class SecureSigningWeb extends WebPlugin implements SecureSigningPlugin {
   async doesKeyPairExist(_options: {
@@ -12,12 +22,15 @@ export class SecureSigningWeb extends WebPlugin implements SecureSigningPlugin {
   async sign(options: {
     prefixedKey: string;
     data: string;
+    format?: SignatureFormat;
   }): Promise<{ signature: string }> {
     // TODO:
     return Promise.resolve({ signature: options.prefixedKey });
   }
   async generateKeyPair(options: {
     prefixedKey: string;
+    format?: PublicKeyFormat;
+    keyOptions?: KeyGenerationOptions;
   }): Promise<{ publicKey: string }> {
     // TODO:
     return Promise.resolve({ publicKey: options.prefixedKey });
@@ -25,6 +38,8 @@ export class SecureSigningWeb extends WebPlugin implements SecureSigningPlugin {
 
   async createKeyPairIfDoesNotExist(options: {
     prefixedKey: string;
+    format?: PublicKeyFormat;
+    keyOptions?: KeyGenerationOptions;
   }): Promise<{ publicKey: string }> {
     // TODO:
     return Promise.resolve({ publicKey: options.prefixedKey });
@@ -40,8 +55,141 @@ export class SecureSigningWeb extends WebPlugin implements SecureSigningPlugin {
 
   async getKeyPair(options: {
     prefixedKey: string;
+    format?: PublicKeyFormat;
   }): Promise<{ publicKey: string }> {
     // TODO:
     return Promise.resolve({ publicKey: options.prefixedKey });
   }
+
+  async signDigest(_options: {
+    prefixedKey: string;
+    digest: string;
+    format?: SignatureFormat;
+  }): Promise<{ signature: string }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async signBatch(_options: {
+    prefixedKey: string;
+    data: string[];
+    format?: SignatureFormat;
+  }): Promise<{ results: SignBatchResult[] }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async signFile(_options: {
+    prefixedKey: string;
+    path: string;
+    offset?: number;
+    length?: number;
+    format?: SignatureFormat;
+  }): Promise<{ signature: string }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async beginSign(_options: {
+    prefixedKey: string;
+  }): Promise<{ sessionId: string }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async updateSign(_options: {
+    sessionId: string;
+    data: string;
+  }): Promise<void> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async finishSign(_options: {
+    sessionId: string;
+    format?: SignatureFormat;
+  }): Promise<{ signature: string }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async cancelSign(_options: { sessionId: string }): Promise<void> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async verify(_options: {
+    publicKey: string;
+    data: string;
+    signature: string;
+    format?: SignatureFormat;
+  }): Promise<{ valid: boolean }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async verifyBatch(_options: {
+    items: VerifyBatchItem[];
+    format?: SignatureFormat;
+  }): Promise<{ results: VerifyBatchResult[] }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async signJws(_options: {
+    prefixedKey: string;
+    header?: { [key: string]: unknown };
+    payload: { [key: string]: unknown };
+  }): Promise<{ token: string }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async createSessionKey(_options: {
+    prefixedKey: string;
+    ttl: number;
+    maxUses?: number;
+    format?: PublicKeyFormat;
+  }): Promise<{ sessionId: string; publicKey: string; delegation: string }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async signWithSession(_options: {
+    sessionId: string;
+    data: string;
+    format?: SignatureFormat;
+  }): Promise<{ signature: string }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async signMerkleBatch(_options: {
+    prefixedKey: string;
+    data: string[];
+    format?: SignatureFormat;
+  }): Promise<{
+    root: string;
+    signature: string;
+    treeSize: number;
+    proofs: string[][];
+  }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async verifyMerkleProof(_options: {
+    publicKey: string;
+    data: string;
+    index: number;
+    treeSize: number;
+    proof: string[];
+    signature: string;
+    format?: SignatureFormat;
+  }): Promise<{ valid: boolean }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async listKeys(_options?: { prefix?: string }): Promise<{ keys: string[] }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async getMetrics(): Promise<SigningMetrics> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async resetMetrics(_options?: { enabled?: boolean }): Promise<void> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async getWarmUpStatus(): Promise<WarmUpStatus> {
+    throw this.unimplemented('Not implemented on web.');
+  }
 }